@@ -0,0 +1,326 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import com.hrznstudio.titanium.api.block_network.NetworkElement;
+import com.hrznstudio.titanium.block_network.graph.NetworkConnectivity;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds, removes, merges, splits and scans elements through the {@link NetworkManager} and {@link
+ * com.hrznstudio.titanium.block_network.graph.NetworkGraph} the game uses, on a manager without a level.
+ * <p>
+ * Adding and removing extend or shorten a spur hanging below the origin, timed as one batch of {@link #SPUR} changes.
+ * Merging and splitting place or break a bridge between two big halves of the structure, one change per iteration.
+ * Both restore the structure between iterations, never between single calls.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NetworkManagerBenchmark {
+    private static final ResourceLocation TYPE = new ResourceLocation("titanium", "benchmark");
+    private static final int SPUR = 1000;
+
+    static {
+        NetworkRegistry.INSTANCE.addFactory(TYPE, new NetworkFactory() {
+            @Override
+            public Network create(BlockPos pos) {
+                return new BenchmarkNetwork(pos, NetworkFactory.randomString(new Random(), 8));
+            }
+
+            @Override
+            public Network create(CompoundTag tag) {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = SPUR)
+    @Measurement(iterations = 20, batchSize = SPUR)
+    public void add(WithoutSpur structure) {
+        structure.manager.addElement(structure.spur[structure.spurLength++]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = SPUR)
+    @Measurement(iterations = 20, batchSize = SPUR)
+    public void remove(WithSpur structure) {
+        structure.manager.removeElement(structure.spur[--structure.spurLength].getPos());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void merge(Split structure) {
+        structure.manager.addElement(structure.bridge);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public void split(Joined structure) {
+        structure.manager.removeElement(structure.bridge.getPos());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int fullScan(Structure structure) {
+        return structure.manager.getScanner()
+            .scanAt(structure.manager::getElement, structure.origin, structure.members, TYPE)
+            .getFoundElementsByPos().size();
+    }
+
+    /**
+     * A connected structure of the given shape and size, with a bridge whose removal splits it in two big pieces and a
+     * spur of positions going down from the origin that touch nothing but each other and the origin.
+     */
+    @State(Scope.Thread)
+    public static class Structure {
+        @Param({"line", "plane", "tree"})
+        public String shape;
+
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        NetworkManager manager;
+        // The elements of the network as a rescan would compare against
+        final Long2ObjectOpenHashMap<NetworkElement> members = new Long2ObjectOpenHashMap<>();
+        final BenchmarkElement[] spur = new BenchmarkElement[SPUR];
+        long origin;
+        BenchmarkElement bridge;
+        int spurLength;
+
+        @Setup(Level.Trial)
+        public void build() {
+            LongArrayList positions = new LongArrayList(size);
+            long bridgePos = switch (shape) {
+                case "line" -> line(positions);
+                case "plane" -> plane(positions);
+                case "tree" -> tree(positions);
+                default -> throw new IllegalArgumentException("Unknown shape " + shape);
+            };
+            origin = positions.getLong(0);
+
+            manager = new NetworkManager(null);
+            manager.setBatchingChanges(true);
+            for (int i = 0; i < positions.size(); i++) {
+                BenchmarkElement element = new BenchmarkElement(BlockPos.of(positions.getLong(i)));
+                manager.addElement(element);
+                members.put(element.getPos().asLong(), element);
+                if (element.getPos().asLong() == bridgePos) {
+                    bridge = element;
+                }
+            }
+            manager.setBatchingChanges(false);
+
+            for (int i = 0; i < SPUR; i++) {
+                spur[i] = new BenchmarkElement(BlockPos.of(origin).below(i + 1));
+            }
+        }
+
+        /**
+         * A straight cable along x, the bridge is its middle.
+         */
+        private long line(LongArrayList positions) {
+            for (int x = 0; x < size; x++) {
+                positions.add(BlockPos.asLong(x, 64, 0));
+            }
+            return BlockPos.asLong(size / 2, 64, 0);
+        }
+
+        /**
+         * A square on the xz plane whose middle column is missing except for the bridge in its center.
+         */
+        private long plane(LongArrayList positions) {
+            int side = (int) Math.ceil(Math.sqrt(size));
+            int middle = side / 2;
+            for (int x = 0; x < side; x++) {
+                for (int z = 0; z < side; z++) {
+                    if (x != middle || z == middle) {
+                        positions.add(BlockPos.asLong(x, 64, z));
+                    }
+                }
+            }
+            return BlockPos.asLong(middle, 64, middle);
+        }
+
+        /**
+         * A random tree growing up from the origin, every position touches exactly one earlier one so there are no
+         * cycles. The bridge is the position that splits it most evenly.
+         */
+        private long tree(LongArrayList positions) {
+            Random random = new Random(size);
+            LongOpenHashSet placed = new LongOpenHashSet(size);
+            IntArrayList parents = new IntArrayList(size);
+
+            long root = BlockPos.asLong(0, 64, 0);
+            positions.add(root);
+            placed.add(root);
+            parents.add(-1);
+
+            while (positions.size() < size) {
+                int parent = random.nextInt(positions.size());
+                long candidate = NetworkConnectivity.neighbour(positions.getLong(parent), random.nextInt(NetworkConnectivity.SIDES));
+                if (BlockPos.getY(candidate) < 64 || placed.contains(candidate) || countPlacedNeighbours(placed, candidate) != 1) {
+                    continue;
+                }
+                positions.add(candidate);
+                placed.add(candidate);
+                parents.add(parent);
+            }
+
+            // Children always come after their parent, so walking backwards sums up every subtree
+            int[] subtreeSizes = new int[positions.size()];
+            int bridge = 1;
+            for (int i = positions.size() - 1; i > 0; i--) {
+                subtreeSizes[i]++;
+                subtreeSizes[parents.getInt(i)] += subtreeSizes[i];
+            }
+            for (int i = 1; i < positions.size(); i++) {
+                if (Math.min(subtreeSizes[i], size - subtreeSizes[i]) > Math.min(subtreeSizes[bridge], size - subtreeSizes[bridge])) {
+                    bridge = i;
+                }
+            }
+            return positions.getLong(bridge);
+        }
+
+        private static int countPlacedNeighbours(LongOpenHashSet placed, long pos) {
+            int count = 0;
+            for (int side = 0; side < NetworkConnectivity.SIDES; side++) {
+                if (placed.contains(NetworkConnectivity.neighbour(pos, side))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void removeSpur() {
+            while (spurLength > 0) {
+                manager.removeElement(spur[--spurLength].getPos());
+            }
+        }
+
+        void addSpur() {
+            while (spurLength < SPUR) {
+                manager.addElement(spur[spurLength++]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WithoutSpur extends Structure {
+        @Setup(Level.Iteration)
+        public void reset() {
+            removeSpur();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WithSpur extends Structure {
+        @Setup(Level.Iteration)
+        public void reset() {
+            addSpur();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Split extends Structure {
+        @Setup(Level.Iteration)
+        public void reset() {
+            if (manager.getElement(bridge.getPos()) != null) {
+                manager.removeElement(bridge.getPos());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Joined extends Structure {
+        @Setup(Level.Iteration)
+        public void reset() {
+            if (manager.getElement(bridge.getPos()) == null) {
+                manager.addElement(bridge);
+            }
+        }
+    }
+
+    private static class BenchmarkNetwork extends Network {
+        BenchmarkNetwork(BlockPos originPos, String id) {
+            super(originPos, id);
+        }
+
+        @Override
+        public void onMergedWith(Network mainNetwork) {
+        }
+
+        @Override
+        public ResourceLocation getType() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * An element without a level, it has no block to update and is only equal to itself.
+     */
+    private static class BenchmarkElement extends NetworkElement {
+        BenchmarkElement(BlockPos pos) {
+            super(null, pos);
+        }
+
+        @Override
+        protected void queueBlockUpdate(@Nullable Network previous) {
+        }
+
+        @Override
+        public ResourceLocation getId() {
+            return TYPE;
+        }
+
+        @Override
+        public ResourceLocation getNetworkType() {
+            return TYPE;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(pos.asLong());
+        }
+    }
+}
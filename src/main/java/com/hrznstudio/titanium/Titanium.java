@@ -14,7 +14,11 @@ import com.hrznstudio.titanium._impl.test.TestBlock;
 import com.hrznstudio.titanium._impl.test.TwentyFourTestBlock;
 import com.hrznstudio.titanium._impl.test.recipe.TestSerializableRecipe;
 import com.hrznstudio.titanium.annotation.scanning.ScanDataProvider;
+import com.hrznstudio.titanium.block.tile.AutoIOScheduler;
 import com.hrznstudio.titanium.block.tile.PoweredTile;
+import com.hrznstudio.titanium.block.tile.TileUpdateBatcher;
+import com.hrznstudio.titanium.block_network.NetworkManager;
+import com.hrznstudio.titanium.command.NetworkCommand;
 import com.hrznstudio.titanium.command.RewardCommand;
 import com.hrznstudio.titanium.command.RewardGrantCommand;
 import com.hrznstudio.titanium.container.BasicAddonContainer;
@@ -33,7 +37,9 @@ import com.hrznstudio.titanium.reward.RewardSyncMessage;
 import com.hrznstudio.titanium.reward.storage.RewardWorldStorage;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.PacketSender;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.resource.conditions.v1.ResourceConditions;
@@ -66,6 +72,17 @@ public class Titanium extends ModuleController implements ModInitializer {
         commonSetup();
         ServerPlayConnectionEvents.JOIN.register(this::onPlayerLoggedIn);
         ServerLifecycleEvents.SERVER_STARTING.register(this::onServerStart);
+        ServerTickEvents.END_WORLD_TICK.register(level -> NetworkManager.get(level).tick());
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            AutoIOScheduler.INSTANCE.run();
+            TileUpdateBatcher.INSTANCE.run();
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            AutoIOScheduler.INSTANCE.clear();
+            TileUpdateBatcher.INSTANCE.clear();
+        });
+        ServerChunkEvents.CHUNK_LOAD.register((level, chunk) -> NetworkManager.get(level).onChunkLoad(chunk.getPos()));
+        ServerChunkEvents.CHUNK_UNLOAD.register((level, chunk) -> NetworkManager.get(level).onChunkUnload(chunk.getPos()));
 //        EventManager.mod(RegisterCapabilitiesEvent.class).process(CapabilityItemStackHolder::register).subscribe();
         ResourceConditions.register(ContentExistsCondition.NAME, ContentExistsCondition::test);
 
@@ -137,5 +154,6 @@ public class Titanium extends ModuleController implements ModInitializer {
     private void onServerStart(MinecraftServer server) {
         RewardCommand.register(server.getCommands().getDispatcher());
         RewardGrantCommand.register(server.getCommands().getDispatcher());
+        NetworkCommand.register(server.getCommands().getDispatcher());
     }
 }
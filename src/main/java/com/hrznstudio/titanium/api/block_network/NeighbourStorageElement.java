@@ -0,0 +1,135 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.api.block_network;
+
+import com.hrznstudio.titanium.block_network.NeighbourStorageNetwork;
+import com.hrznstudio.titanium.block_network.NeighbourStorages;
+import com.hrznstudio.titanium.block_network.Network;
+import com.hrznstudio.titanium.block_network.NetworkManager;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiLookup;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An element that registers the storages around it with its {@link NeighbourStorageNetwork}. Blocks using it should
+ * call {@link #refreshNeighbourStorages()} when a neighbour changes.
+ *
+ * @param <S> what the network keeps for each neighbouring storage
+ */
+public abstract class NeighbourStorageElement<S> extends NetworkElement {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    public NeighbourStorageElement(Level level, BlockPos pos) {
+        super(level, pos);
+    }
+
+    /**
+     * Creates what the network keeps for the storage on the given side of this element.
+     *
+     * @param neighbourPos the position of the neighbour
+     * @param direction    the direction from this element to the neighbour
+     * @return null if there is no storage the network can use
+     */
+    @Nullable
+    protected abstract S findNeighbourStorage(ServerLevel serverLevel, BlockPos neighbourPos, Direction direction);
+
+    /**
+     * Whether the storage on the given side of this element may be used by the network.
+     */
+    protected boolean connectsTo(Direction direction) {
+        return true;
+    }
+
+    @Override
+    public void joinNetwork(Network network) {
+        NeighbourStorages<S> previous = getStorages(this.network);
+
+        super.joinNetwork(network);
+
+        // Merges and splits move elements without leaving their old network first, the neighbours didn't change so
+        // the storages move along instead of being looked up again
+        NeighbourStorages<S> storages = getStorages(network);
+        if (previous != null && storages != null) {
+            List<S> moved = previous.remove(pos.asLong());
+            if (moved != null) {
+                storages.set(pos.asLong(), moved);
+            }
+        } else {
+            if (previous != null) {
+                previous.remove(pos.asLong());
+            }
+            refreshNeighbourStorages();
+        }
+    }
+
+    @Override
+    public void leaveNetwork() {
+        NeighbourStorages<S> previous = getStorages(this.network);
+        if (previous != null) {
+            previous.remove(pos.asLong());
+        }
+
+        super.leaveNetwork();
+    }
+
+    public void refreshNeighbourStorages() {
+        NeighbourStorages<S> storages = getStorages(network);
+        if (storages != null && level instanceof ServerLevel serverLevel) {
+            storages.set(pos.asLong(), findNeighbourStorages(serverLevel));
+        }
+    }
+
+    protected List<S> findNeighbourStorages(ServerLevel serverLevel) {
+        NetworkManager manager = NetworkManager.get(serverLevel);
+        List<S> storages = new ArrayList<>();
+
+        for (Direction direction : DIRECTIONS) {
+            BlockPos neighbourPos = pos.relative(direction);
+            if (!connectsTo(direction) || !serverLevel.isLoaded(neighbourPos)) {
+                continue;
+            }
+
+            // Other elements of the same network type are part of the network, not a storage next to it
+            NetworkElement neighbour = manager.getElement(neighbourPos);
+            if (neighbour != null && neighbour.getNetworkType().equals(getNetworkType())) {
+                continue;
+            }
+
+            S storage = findNeighbourStorage(serverLevel, neighbourPos, direction);
+            if (storage != null) {
+                storages.add(storage);
+            }
+        }
+
+        return storages;
+    }
+
+    /**
+     * Creates a cache for the API of the neighbour, if it exposes the API on the side facing this element.
+     */
+    @Nullable
+    protected static <A> BlockApiCache<A, Direction> findCache(BlockApiLookup<A, Direction> lookup, ServerLevel serverLevel, BlockPos neighbourPos, Direction direction) {
+        if (lookup.find(serverLevel, neighbourPos, direction.getOpposite()) == null) {
+            return null;
+        }
+        return BlockApiCache.create(lookup, serverLevel, neighbourPos);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private NeighbourStorages<S> getStorages(@Nullable Network network) {
+        return network instanceof NeighbourStorageNetwork<?> storageNetwork ? (NeighbourStorages<S>) storageNetwork.getNeighbourStorages() : null;
+    }
+}
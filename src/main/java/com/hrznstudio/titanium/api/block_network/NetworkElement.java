@@ -8,15 +8,17 @@
 package com.hrznstudio.titanium.api.block_network;
 
 import com.hrznstudio.titanium.block_network.Network;
+import com.hrznstudio.titanium.block_network.NetworkManager;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Objects;
+import javax.annotation.Nullable;
 
 public abstract class NetworkElement {
     protected final Level level;
@@ -34,6 +36,31 @@ public abstract class NetworkElement {
 
     }
 
+    /**
+     * Stops {@link #update()} from being called until the element is woken, either by {@link #wake()}, by a neighbouring
+     * element being placed or removed, or by joining another network.
+     */
+    public void sleep() {
+        if (network != null) {
+            network.sleepElement(this, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Like {@link #sleep()}, but wakes up on its own after the given amount of ticks.
+     */
+    public void sleepFor(int ticks) {
+        if (network != null) {
+            network.sleepElement(this, level.getGameTime() + ticks);
+        }
+    }
+
+    public void wake() {
+        if (network != null) {
+            network.wakeElement(this);
+        }
+    }
+
 
     public Level getLevel() {
         return level;
@@ -48,19 +75,41 @@ public abstract class NetworkElement {
     }
 
     public void joinNetwork(Network network) {
+        Network previous = this.network;
         this.network = network;
 
-        logger.debug(pos + " joined network " + network.getId());
+        logger.debug("{} joined network {}", pos, network.getId());
 
-        sendBlockUpdate();
+        queueBlockUpdate(previous);
     }
 
     public void leaveNetwork() {
-        logger.debug(pos + " left network " + network.getId());
-
+        Network previous = this.network;
         this.network = null;
 
-        sendBlockUpdate();
+        logger.debug("{} left network {}", pos, previous == null ? null : previous.getId());
+
+        queueBlockUpdate(previous);
+    }
+
+    /**
+     * Whether clients need a block update after this element moved from one network to another. By default only
+     * gaining or losing a network is visible, moving between networks during a merge or split is not.
+     */
+    public boolean hasClientVisibleChange(@Nullable Network previous, @Nullable Network current) {
+        return (previous == null) != (current == null);
+    }
+
+    /**
+     * Block updates for network changes are collected by the {@link NetworkManager} and sent once per position at the
+     * end of the tick, so merging or splitting a big network doesn't send one packet per element right away.
+     */
+    protected void queueBlockUpdate(@Nullable Network previous) {
+        if (level instanceof ServerLevel serverLevel) {
+            NetworkManager.get(serverLevel).queueBlockUpdate(this, previous);
+        } else if (hasClientVisibleChange(previous, network)) {
+            sendBlockUpdate();
+        }
     }
 
     public void sendBlockUpdate() {
@@ -89,6 +138,7 @@ public abstract class NetworkElement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(level, pos);
+        // Avoids the varargs array Objects.hash would allocate, elements get hashed a lot while scanning.
+        return 31 * level.hashCode() + Long.hashCode(pos.asLong());
     }
 }
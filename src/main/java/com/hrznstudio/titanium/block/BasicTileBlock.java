@@ -7,6 +7,7 @@
 
 package com.hrznstudio.titanium.block;
 
+import com.hrznstudio.titanium.block.tile.ActiveTile;
 import com.hrznstudio.titanium.block.tile.BasicTile;
 import com.hrznstudio.titanium.block.tile.ITickableBlockEntity;
 import com.hrznstudio.titanium.module.DeferredRegistryHelper;
@@ -35,20 +36,57 @@ import java.util.function.Supplier;
 
 public abstract class BasicTileBlock<T extends BasicTile<T>> extends BasicBlock implements EntityBlock {
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final BlockEntityTicker<BlockEntity> SERVER_TICKER = (level, pos, state, blockEntity) -> {
+        if (blockEntity instanceof ITickableBlockEntity tickable && tickable.shouldServerTick(level)) {
+            tickable.serverTick(level, pos, state, blockEntity);
+        }
+    };
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final BlockEntityTicker<BlockEntity> CLIENT_TICKER = (level, pos, state, blockEntity) -> {
+        if (blockEntity instanceof ITickableBlockEntity tickable) {
+            tickable.clientTick(level, pos, state, blockEntity);
+        }
+    };
+
     private final Class<T> tileClass;
+    private final boolean ticksOnServer;
+    private final boolean ticksOnClient;
 
     public BasicTileBlock(String name, Properties properties, Class<T> tileClass) {
         super(name, properties);
         this.tileClass = tileClass;
+        this.ticksOnServer = overridesTick(tileClass, "serverTick");
+        this.ticksOnClient = overridesTick(tileClass, "clientTick");
         NBTManager.getInstance().scanTileClassForAnnotations(tileClass);
     }
 
+    /**
+     * Whether the tile implements the given tick method itself, the empty defaults of {@link ITickableBlockEntity} don't
+     * need a ticker.
+     */
+    private static boolean overridesTick(Class<?> tileClass, String name) {
+        if (!ITickableBlockEntity.class.isAssignableFrom(tileClass)) {
+            return false;
+        }
+        try {
+            return !tileClass.getMethod(name, Level.class, BlockPos.class, BlockState.class, BlockEntity.class).isDefault();
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
     public abstract BlockEntityType.BlockEntitySupplier<?> getTileEntityFactory();
 
     @Override
     @SuppressWarnings("deprecation")
     public void neighborChanged(BlockState state, Level worldIn, BlockPos pos, Block blockIn, BlockPos fromPos, boolean p_220069_6_) {
-        getTile(worldIn, pos).ifPresent(tile -> tile.onNeighborChanged(blockIn, fromPos));
+        getTile(worldIn, pos).ifPresent(tile -> {
+            if (tile instanceof ActiveTile<?> activeTile) {
+                activeTile.wake();
+            }
+            tile.onNeighborChanged(blockIn, fromPos);
+        });
     }
 
 
@@ -56,7 +94,12 @@ public abstract class BasicTileBlock<T extends BasicTile<T>> extends BasicBlock
     @SuppressWarnings("deprecation")
     public InteractionResult use(BlockState state, Level worldIn, BlockPos pos, Player player, InteractionHand hand, BlockHitResult ray) {
         return getTile(worldIn, pos)
-            .map(tile -> tile.onActivated(player, hand, ray.getDirection(), ray.getLocation().x, ray.getLocation().y, ray.getLocation().z))
+            .map(tile -> {
+                if (tile instanceof ActiveTile<?> activeTile) {
+                    activeTile.wake();
+                }
+                return tile.onActivated(player, hand, ray.getDirection(), ray.getLocation().x, ray.getLocation().y, ray.getLocation().z);
+            })
             .orElseGet(() -> super.use(state, worldIn, pos, player, hand, ray));
     }
 
@@ -71,16 +114,12 @@ public abstract class BasicTileBlock<T extends BasicTile<T>> extends BasicBlock
 
     @Nullable
     @Override
+    @SuppressWarnings("unchecked")
     public <R extends BlockEntity> BlockEntityTicker<R> getTicker(Level p_153212_, BlockState p_153213_, BlockEntityType<R> p_153214_) {
-        return (level, pos, state, blockEntity) -> {
-            if (blockEntity instanceof ITickableBlockEntity) {
-                if (level.isClientSide()) {
-                    ((ITickableBlockEntity) blockEntity).clientTick(level, pos, state, blockEntity);
-                } else {
-                    ((ITickableBlockEntity) blockEntity).serverTick(level, pos, state, blockEntity);
-                }
-            }
-        };
+        if (p_153212_.isClientSide()) {
+            return ticksOnClient ? (BlockEntityTicker<R>) CLIENT_TICKER : null;
+        }
+        return ticksOnServer ? (BlockEntityTicker<R>) SERVER_TICKER : null;
     }
 
     @Nullable
@@ -38,6 +38,7 @@ import io.github.fabricators_of_create.porting_lib.transfer.TransferUtil;
 import io.github.fabricators_of_create.porting_lib.util.FluidStack;
 import io.github.fabricators_of_create.porting_lib.util.LazyOptional;
 import io.github.fabricators_of_create.porting_lib.util.NetworkUtil;
+import it.unimi.dsi.fastutil.HashCommon;
 import net.fabricmc.fabric.api.transfer.v1.context.ContainerItemContext;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidConstants;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidStorage;
@@ -73,6 +74,7 @@ import net.fabricmc.api.Environment;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -80,6 +82,23 @@ public abstract class ActiveTile<T extends ActiveTile<T>> extends BasicTile<T> i
     ITickableBlockEntity<T>, MenuProvider, IButtonHandler, IFacingComponentHarness, IContainerAddonProvider,
     IHasAssetProvider, SidedStorageBlockEntity {
 
+    private static final long AWAKE = -1;
+    // Tiles that add their own work to serverTick keep ticking, unless they also tell when they can sleep
+    private static final ClassValue<Boolean> MAY_SLEEP = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null && current != ActiveTile.class; current = current.getSuperclass()) {
+                if (declaresMethod(current, "canSleep")) {
+                    return true;
+                }
+                if (declaresMethod(current, "serverTick")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    };
+
     private MultiInventoryComponent<T> multiInventoryComponent;
     private MultiProgressBarHandler<T> multiProgressBarHandler;
     private MultiTankComponent<T> multiTankComponent;
@@ -92,11 +111,19 @@ public abstract class ActiveTile<T extends ActiveTile<T>> extends BasicTile<T> i
 
     private List<IComponentBundle> bundles;
 
+    private long sleepingUntil = AWAKE;
+    // Component changes waiting for the end of the tick
+    private boolean pendingSave;
+    private boolean pendingClientUpdate;
+    // Spreads the IO of different tiles over the ticks of the work time
+    private final long ioPhase;
+
     public ActiveTile(BasicTileBlock<T> base, BlockEntityType<?> blockEntityType, BlockPos pos, BlockState state) {
         super(base, blockEntityType,pos, state);
         this.guiAddons = new ArrayList<>();
         this.containerAddons = new ArrayList<>();
         this.bundles = new ArrayList<>();
+        this.ioPhase = HashCommon.mix(pos.asLong());
     }
 
     @Override
@@ -184,7 +211,7 @@ public abstract class ActiveTile<T extends ActiveTile<T>> extends BasicTile<T> i
     @Override
     public Storage<ItemVariant> getItemStorage(Direction side) {
         if (multiInventoryComponent != null)
-            return multiInventoryComponent.getCapabilityForSide(FacingUtil.getFacingRelative(this.getFacingDirection(), side)).getValueUnsafer();
+            return multiInventoryComponent.getHandlerForSide(FacingUtil.getFacingRelative(this.getFacingDirection(), side));
         return null;
     }
 
@@ -238,28 +265,121 @@ public abstract class ActiveTile<T extends ActiveTile<T>> extends BasicTile<T> i
         return IAssetProvider.DEFAULT_PROVIDER;
     }
 
+    private static boolean declaresMethod(Class<?> type, String name) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean shouldServerTick(Level level) {
+        if (sleepingUntil == AWAKE) {
+            return true;
+        }
+        if (level.getGameTime() >= sleepingUntil) {
+            sleepingUntil = AWAKE;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resumes ticking right away. Inventory, tank and energy changes, neighbour updates, clicks and button presses
+     * all wake the tile.
+     */
+    public void wake() {
+        sleepingUntil = AWAKE;
+    }
+
+    /**
+     * Skips ticking until the given game time, or until something wakes the tile.
+     */
+    public void sleepUntil(long gameTime) {
+        sleepingUntil = gameTime;
+    }
+
+    public boolean isSleeping() {
+        return sleepingUntil != AWAKE;
+    }
+
+    /**
+     * Whether the tile has nothing to do and can stop ticking until it's woken. By default that's when the progress bar
+     * update of this tick found nothing to progress or reset and no inventory or tank pushes or pulls. Tiles that do more work every tick than that
+     * should override this, otherwise they're never put to sleep.
+     */
+    protected boolean canSleep() {
+        if (multiProgressBarHandler != null && !multiProgressBarHandler.isIdle()) {
+            return false;
+        }
+        if (multiInventoryComponent != null) {
+            for (InventoryComponent<T> inventoryHandler : multiInventoryComponent.getInventoryHandlers()) {
+                if (inventoryHandler instanceof IFacingComponent && hasAutomatedFaces((IFacingComponent) inventoryHandler)) {
+                    return false;
+                }
+            }
+        }
+        if (multiTankComponent != null) {
+            for (FluidTankComponent<T> tank : multiTankComponent.getTanks()) {
+                if (tank instanceof IFacingComponent && hasAutomatedFaces((IFacingComponent) tank)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasAutomatedFaces(IFacingComponent facingComponent) {
+        for (IFacingComponent.FaceMode faceMode : facingComponent.getFacingModes().values()) {
+            if (faceMode == IFacingComponent.FaceMode.PUSH || faceMode == IFacingComponent.FaceMode.PULL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How long an idle tile sleeps before checking again whether it has work, for conditions nothing wakes it for.
+     */
+    public int getIdleWakeInterval() {
+        return 20;
+    }
+
     @Override
     public void serverTick(Level level, BlockPos pos, BlockState state, T blockEntity) {
         if (multiProgressBarHandler != null) multiProgressBarHandler.update();
-        if (level.getGameTime() % getFacingHandlerWorkTime() == 0) {
-            if (multiInventoryComponent != null) {
-                for (InventoryComponent<T> inventoryHandler : multiInventoryComponent.getInventoryHandlers()) {
-                    if (inventoryHandler instanceof IFacingComponent) {
-                        if (((IFacingComponent) inventoryHandler).work(this.level, this.worldPosition, this.getFacingDirection(), getFacingHandlerWorkAmount()))
-                            break;
-                    }
+        if (Math.floorMod(level.getGameTime() + ioPhase, getFacingHandlerWorkTime()) == 0) {
+            AutoIOScheduler.INSTANCE.schedule(this);
+        }
+        if (MAY_SLEEP.get(getClass()) && canSleep()) {
+            long wakeTick = level.getGameTime() + getIdleWakeInterval();
+            sleepUntil(multiProgressBarHandler != null ? multiProgressBarHandler.getNextWakeTick(wakeTick) : wakeTick);
+        }
+    }
+
+    /**
+     * Pushes and pulls through the inventories and tanks that have automated faces, run by the {@link AutoIOScheduler}
+     * once every {@link #getFacingHandlerWorkTime()} ticks.
+     */
+    public void workFacingHandlers() {
+        if (multiInventoryComponent != null) {
+            for (InventoryComponent<T> inventoryHandler : multiInventoryComponent.getInventoryHandlers()) {
+                if (inventoryHandler instanceof IFacingComponent) {
+                    if (((IFacingComponent) inventoryHandler).work(this.level, this.worldPosition, this.getFacingDirection(), getFacingHandlerWorkAmount()))
+                        break;
                 }
             }
-            if (multiTankComponent != null) {
-                for (FluidTankComponent<T> tank : multiTankComponent.getTanks()) {
-                    if (tank instanceof IFacingComponent) {
-                        if (((IFacingComponent) tank).work(this.level, this.worldPosition, this.getFacingDirection(), getFacingHandlerWorkAmount()))
-                            break;
-                    }
+        }
+        if (multiTankComponent != null) {
+            for (FluidTankComponent<T> tank : multiTankComponent.getTanks()) {
+                if (tank instanceof IFacingComponent) {
+                    if (((IFacingComponent) tank).work(this.level, this.worldPosition, this.getFacingDirection(), getFacingHandlerWorkAmount()))
+                        break;
                 }
             }
         }
-
     }
 
     public int getFacingHandlerWorkTime() {
@@ -297,6 +417,7 @@ public abstract class ActiveTile<T extends ActiveTile<T>> extends BasicTile<T> i
 
     @Override
     public void handleButtonMessage(int id, Player playerEntity, CompoundTag compound) {
+        wake();
         if (id == -3) {
             if (!compound.contains("Invalid") && compound.contains("Fill") && !playerEntity.containerMenu.getCarried().isEmpty()) {
                 boolean fill = compound.getBoolean("Fill");
@@ -360,15 +481,48 @@ public abstract class ActiveTile<T extends ActiveTile<T>> extends BasicTile<T> i
 
     @Override
     public void markComponentDirty() {
-        super.setChanged();
+        wake();
+        if (!canBatchUpdates()) {
+            super.setChanged();
+            return;
+        }
+        pendingSave = true;
+        TileUpdateBatcher.INSTANCE.schedule(this);
     }
 
     @Override
     public void markComponentForUpdate(boolean referenced) {
-        if (!referenced) {
+        wake();
+        if (referenced) {
+            this.markComponentDirty();
+        } else if (!canBatchUpdates()) {
             super.markForUpdate();
         } else {
-            this.markComponentDirty();
+            pendingClientUpdate = true;
+            TileUpdateBatcher.INSTANCE.schedule(this);
+        }
+    }
+
+    private boolean canBatchUpdates() {
+        return level != null && !level.isClientSide;
+    }
+
+    /**
+     * Applies the component changes collected during the tick, a single {@link #setChanged()} and at most one block
+     * update to clients. Called by the {@link TileUpdateBatcher} at the end of the server tick.
+     */
+    public void flushComponentChanges() {
+        boolean save = pendingSave;
+        boolean clientUpdate = pendingClientUpdate;
+        pendingSave = false;
+        pendingClientUpdate = false;
+        if (isRemoved() || level == null) {
+            return;
+        }
+        if (clientUpdate) {
+            super.markForUpdate();
+        } else if (save) {
+            super.setChanged();
         }
     }
 
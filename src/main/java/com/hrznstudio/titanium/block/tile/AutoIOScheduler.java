@@ -0,0 +1,86 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block.tile;
+
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the push/pull of every {@link ActiveTile} at the end of the server tick. Tiles ask for their IO on a tick derived
+ * from their position, so machines don't all work on the same tick, and each tick only runs IO until the time or
+ * operation budget is used up. Tiles that didn't get their turn stay at the head of the queue for the next tick.
+ */
+public class AutoIOScheduler {
+    public static final AutoIOScheduler INSTANCE = new AutoIOScheduler();
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final int DEFAULT_MAX_OPERATIONS = 2048;
+
+    private final ObjectLinkedOpenHashSet<ActiveTile<?>> queue = new ObjectLinkedOpenHashSet<>();
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private int maxOperations = DEFAULT_MAX_OPERATIONS;
+
+    /**
+     * Queues the IO of the tile, a tile that is still waiting keeps its place.
+     */
+    public void schedule(ActiveTile<?> tile) {
+        queue.add(tile);
+    }
+
+    public void cancel(ActiveTile<?> tile) {
+        queue.remove(tile);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    public void setMaxOperations(int maxOperations) {
+        this.maxOperations = maxOperations;
+    }
+
+    /**
+     * Called at the end of every server tick. At least one tile always gets its IO so the queue keeps moving.
+     */
+    public void run() {
+        long start = System.nanoTime();
+        int operations = 0;
+
+        while (!queue.isEmpty()) {
+            ActiveTile<?> tile = queue.removeFirst();
+            if (tile.isRemoved() || tile.getLevel() == null) {
+                continue;
+            }
+
+            tile.workFacingHandlers();
+
+            if (++operations >= maxOperations || System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Drops every queued tile, for when the server stops.
+     */
+    public void clear() {
+        queue.clear();
+    }
+}
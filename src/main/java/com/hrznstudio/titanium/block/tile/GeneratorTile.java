@@ -11,6 +11,7 @@ import com.hrznstudio.titanium.annotation.Save;
 import com.hrznstudio.titanium.block.BasicTileBlock;
 import com.hrznstudio.titanium.component.energy.EnergyStorageComponent;
 import com.hrznstudio.titanium.component.progress.ProgressBarComponent;
+import com.hrznstudio.titanium.component.sideness.NeighbourApiCache;
 import io.github.fabricators_of_create.porting_lib.transfer.TransferUtil;
 import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.minecraft.core.BlockPos;
@@ -19,14 +20,20 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 import team.reborn.energy.api.EnergyStorage;
-import team.reborn.energy.api.EnergyStorageUtil;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class GeneratorTile<T extends GeneratorTile<T>> extends PoweredTile<T> {
 
     @Save
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     private ProgressBarComponent<T> progressBar;
+    private final NeighbourApiCache<EnergyStorage> energyReceivers = new NeighbourApiCache<>(EnergyStorage.SIDED);
+    private final List<EnergyStorage> receivers = new ArrayList<>();
+    private int nextReceiver;
 
     public GeneratorTile(BasicTileBlock<T> base, BlockEntityType<?> blockEntityType, BlockPos pos, BlockState state) {
         super(base, blockEntityType, pos, state);
@@ -93,18 +100,43 @@ public abstract class GeneratorTile<T extends GeneratorTile<T>> extends PoweredT
         return true;
     }
 
+    @Override
+    protected boolean canSleep() {
+        // Stored energy still has to be pushed out to the neighbours
+        return this.getEnergyStorage().getAmount() == 0 && super.canSleep();
+    }
+
     @Override
     public void serverTick(Level level, BlockPos pos, BlockState state, T blockEntity) {
         super.serverTick(level, pos, state, blockEntity);
-        for (Direction facing : Direction.values()) {
-            BlockPos checking = this.worldPosition.relative(facing);
-            EnergyStorage storage = EnergyStorage.SIDED.find(this.level, checking, facing.getOpposite());
-            if (storage != null) {
-                try (Transaction t = TransferUtil.getTransaction()) {
-                    EnergyStorageUtil.move(this.getEnergyStorage(), storage, this.getExtractingEnergy(), t);
-                    t.commit();
-                }
+        long available = Math.min(this.getExtractingEnergy(), this.getEnergyStorage().getAmount());
+        if (available <= 0) {
+            return;
+        }
+        for (Direction facing : DIRECTIONS) {
+            EnergyStorage storage = energyReceivers.find(level, pos, facing);
+            if (storage != null && storage.supportsInsertion()) {
+                receivers.add(storage);
+            }
+        }
+        if (receivers.isEmpty()) {
+            return;
+        }
+        int count = receivers.size();
+        try (Transaction t = TransferUtil.getTransaction()) {
+            // Every receiver is offered an even share of what is left, starting with a different one every tick so
+            // the remainder of the division doesn't always go to the same side
+            long sent = 0;
+            for (int i = 0; i < count && sent < available; i++) {
+                long share = Math.max(1, (available - sent) / (count - i));
+                sent += receivers.get((nextReceiver + i) % count).insert(share, t);
+            }
+            if (sent > 0 && this.getEnergyStorage().extract(sent, t) == sent) {
+                t.commit();
             }
+        } finally {
+            receivers.clear();
+            nextReceiver = (nextReceiver + 1) % count;
         }
     }
 
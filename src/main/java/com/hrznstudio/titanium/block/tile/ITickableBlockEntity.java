@@ -14,6 +14,13 @@ import net.minecraft.world.level.block.state.BlockState;
 
 public interface ITickableBlockEntity<T extends BlockEntity> {
 
+    /**
+     * Checked before every server tick, block entities with nothing to do can return false to skip it.
+     */
+    default boolean shouldServerTick(Level level) {
+        return true;
+    }
+
     default void serverTick(Level level, BlockPos pos, BlockState state, T blockEntity){
 
     }
@@ -0,0 +1,41 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block.tile;
+
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+/**
+ * Collects the {@link ActiveTile}s whose components changed during the server tick and flushes them once at the end of
+ * it, so a tile that changes many times in a tick only marks itself changed and syncs to clients once.
+ */
+public class TileUpdateBatcher {
+    public static final TileUpdateBatcher INSTANCE = new TileUpdateBatcher();
+
+    private final ObjectLinkedOpenHashSet<ActiveTile<?>> pending = new ObjectLinkedOpenHashSet<>();
+
+    public void schedule(ActiveTile<?> tile) {
+        pending.add(tile);
+    }
+
+    public int getPendingSize() {
+        return pending.size();
+    }
+
+    /**
+     * Called at the end of every server tick, after the auto IO so the changes it made go out in the same tick.
+     */
+    public void run() {
+        while (!pending.isEmpty()) {
+            pending.removeFirst().flushComponentChanges();
+        }
+    }
+
+    public void clear() {
+        pending.clear();
+    }
+}
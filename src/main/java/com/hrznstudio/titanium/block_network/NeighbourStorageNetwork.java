@@ -0,0 +1,17 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+/**
+ * A network that keeps track of the storages next to its elements.
+ *
+ * @param <S> what the network keeps for each neighbouring storage
+ */
+public interface NeighbourStorageNetwork<S> {
+    NeighbourStorages<S> getNeighbourStorages();
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The storages next to the elements of a network, by the packed position of the element touching them. Elements fill
+ * it in through {@link com.hrznstudio.titanium.api.block_network.NeighbourStorageElement}, the network reads it when it
+ * moves resources.
+ *
+ * @param <S> what the network keeps for each neighbouring storage
+ */
+public class NeighbourStorages<S> {
+    private final Long2ObjectOpenHashMap<List<S>> storages = new Long2ObjectOpenHashMap<>();
+    private final Runnable onChange;
+
+    public NeighbourStorages() {
+        this(() -> {
+        });
+    }
+
+    /**
+     * @param onChange called whenever the storages of an element are replaced or removed
+     */
+    public NeighbourStorages(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Replaces the storages of the element at the given position, an empty list removes them.
+     */
+    public void set(long elementPos, List<S> elementStorages) {
+        List<S> previous = elementStorages.isEmpty() ? storages.remove(elementPos) : storages.put(elementPos, elementStorages);
+
+        if (previous != null || !elementStorages.isEmpty()) {
+            onChange.run();
+        }
+    }
+
+    /**
+     * @return the storages the element had, or null if it had none
+     */
+    @Nullable
+    public List<S> remove(long elementPos) {
+        List<S> removed = storages.remove(elementPos);
+        if (removed != null) {
+            onChange.run();
+        }
+        return removed;
+    }
+
+    @Nullable
+    public List<S> get(long elementPos) {
+        return storages.get(elementPos);
+    }
+
+    public boolean isEmpty() {
+        return storages.isEmpty();
+    }
+
+    /**
+     * The amount of storages of all elements together.
+     */
+    public int count() {
+        int count = 0;
+        for (List<S> elementStorages : storages.values()) {
+            count += elementStorages.size();
+        }
+        return count;
+    }
+
+    /**
+     * An immutable copy of the storages by element, for a {@link NetworkSnapshot}.
+     */
+    Long2ObjectOpenHashMap<List<S>> copy() {
+        Long2ObjectOpenHashMap<List<S>> copy = new Long2ObjectOpenHashMap<>(storages.size());
+        for (ObjectIterator<Long2ObjectMap.Entry<List<S>>> iterator = iterator(); iterator.hasNext(); ) {
+            Long2ObjectMap.Entry<List<S>> entry = iterator.next();
+            copy.put(entry.getLongKey(), List.copyOf(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Iterates the storages by element without allocating an entry per element. Removing through the iterator doesn't
+     * count as a change.
+     */
+    public ObjectIterator<Long2ObjectMap.Entry<List<S>>> iterator() {
+        return storages.long2ObjectEntrySet().fastIterator();
+    }
+}
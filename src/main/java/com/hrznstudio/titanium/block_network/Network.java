@@ -8,6 +8,7 @@
 package com.hrznstudio.titanium.block_network;
 
 import com.hrznstudio.titanium.api.block_network.NetworkElement;
+import com.hrznstudio.titanium.block_network.event.NetworkScanEvent;
 import com.hrznstudio.titanium.block_network.graph.NetworkGraph;
 import com.hrznstudio.titanium.block_network.graph.NetworkGraphScannerResult;
 import net.minecraft.core.BlockPos;
@@ -15,6 +16,8 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.Level;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Objects;
 
 public abstract class Network {
@@ -22,6 +25,10 @@ public abstract class Network {
     private final String id;
     private BlockPos originPos;
     private boolean didDoInitialScan;
+    // Diagnostics for the networks command, not saved
+    private long lastScanTime = -1;
+    private int mergeCount;
+    private int splitCount;
 
     public Network(BlockPos originPos, String id) {
         this.id = id;
@@ -32,12 +39,69 @@ public abstract class Network {
         this.originPos = originPos;
     }
 
+    public BlockPos getOriginPos() {
+        return originPos;
+    }
+
+    /**
+     * Networks formed or restored by the {@link NetworkManager} already know their members and don't need the initial scan.
+     */
+    void markInitialScanDone() {
+        didDoInitialScan = true;
+    }
+
     public String getId() {
         return id;
     }
 
     public NetworkGraphScannerResult scanGraph(Level level, BlockPos pos) {
-        return graph.scan(level, pos);
+        NetworkScanEvent event = new NetworkScanEvent();
+        event.begin();
+
+        NetworkGraphScannerResult result = graph.scan(level, pos);
+        lastScanTime = level.getGameTime();
+
+        if (event.shouldCommit()) {
+            event.networkId = id;
+            event.elementCount = graph.size();
+            event.commit();
+        }
+
+        return result;
+    }
+
+    public NetworkGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * The amount of loaded elements in this network.
+     */
+    public int getElementCount() {
+        return graph.size();
+    }
+
+    /**
+     * The game time of the last full scan, or -1 if this network was never scanned since it was loaded.
+     */
+    public long getLastScanTime() {
+        return lastScanTime;
+    }
+
+    public int getMergeCount() {
+        return mergeCount;
+    }
+
+    public int getSplitCount() {
+        return splitCount;
+    }
+
+    void recordMerge(int mergedNetworks) {
+        mergeCount += mergedNetworks;
+    }
+
+    void recordSplit() {
+        splitCount++;
     }
 
 
@@ -52,18 +116,55 @@ public abstract class Network {
         if (!didDoInitialScan) {
             didDoInitialScan = true;
 
-            scanGraph(level, originPos);
+            NetworkManager.get(level).scheduleRescan(this);
         }
 
-        graph.getElements().forEach(NetworkElement::update);
+        graph.updateElements(level.getGameTime());
+    }
+
+    /**
+     * Captures a snapshot of what this network needs for its transfers this tick, so they can be computed in parallel
+     * with other networks by {@link NetworkManager#updateNetworks()}. Networks without such work return null.
+     */
+    @Nullable
+    public ParallelNetworkTick prepareParallelTick(Level level) {
+        return null;
+    }
+
+    public void sleepElement(NetworkElement element, long wakeTick) {
+        graph.sleep(element, wakeTick);
     }
 
+    public void wakeElement(NetworkElement element) {
+        graph.wake(element);
+    }
+
+    /**
+     * Wakes every sleeping element, for network wide events the elements have to react to.
+     */
+    public void wakeAll() {
+        graph.wakeAll();
+    }
+
+    @Nullable
     public NetworkElement getElement(BlockPos pos) {
-        return graph.getElements().stream().filter(p -> p.getPos().equals(pos)).findFirst().orElse(null);
+        return graph.getElement(pos.asLong());
+    }
+
+    /**
+     * Called whenever elements were added to, removed from or unloaded out of this network's graph.
+     */
+    public void onElementsChanged() {
     }
 
     public abstract void onMergedWith(Network mainNetwork);
 
+    /**
+     * Called once after disconnected pieces of this network were moved into the given new networks.
+     */
+    public void onSplit(Collection<Network> splitNetworks) {
+    }
+
     public abstract ResourceLocation getType();
 
     @Override
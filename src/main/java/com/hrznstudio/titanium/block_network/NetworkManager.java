@@ -9,8 +9,22 @@ package com.hrznstudio.titanium.block_network;
 
 import com.hrznstudio.titanium.api.block_network.NetworkElement;
 import com.hrznstudio.titanium.block_network.element.NetworkElementFactory;
+import com.hrznstudio.titanium.block_network.event.NetworkMergeEvent;
+import com.hrznstudio.titanium.block_network.event.NetworkSaveEvent;
+import com.hrznstudio.titanium.block_network.event.NetworkSplitEvent;
 import com.hrznstudio.titanium.block_network.element.NetworkElementRegistry;
+import com.hrznstudio.titanium.block_network.graph.NetworkConnectivity;
+import com.hrznstudio.titanium.block_network.graph.NetworkGraphScanner;
 import com.hrznstudio.titanium.block_network.graph.NetworkGraphScannerResult;
+import com.hrznstudio.titanium.block_network.graph.NetworkWorldAccess;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
@@ -18,6 +32,7 @@ import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.saveddata.SavedData;
 import org.apache.logging.log4j.LogManager;
@@ -28,10 +43,28 @@ import java.util.*;
 
 public class NetworkManager extends SavedData {
     private static final String NAME = "titanium_block_networks";
+    // Unversioned data holds one flat element list, 2 packs positions per chunk and writes ids once in a shared
+    // string table.
+    private static final int VERSION = 2;
     private static final Logger LOGGER = LogManager.getLogger(NetworkManager.class);
     private final Level level;
     private final Map<String, Network> networks = new HashMap<>();
-    private final Map<BlockPos, NetworkElement> elements = new HashMap<>();
+    private final Long2ObjectOpenHashMap<NetworkElement> elements = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<NetworkSection> sections = new Long2ObjectOpenHashMap<>();
+    // How many members of each network are sitting in unloaded sections
+    private final Object2IntOpenHashMap<String> storedMembers = new Object2IntOpenHashMap<>();
+    private final LongArrayList pendingSectionLoads = new LongArrayList();
+    private final List<NetworkElement> pendingReconciles = new ArrayList<>();
+    private final NetworkRescanScheduler rescanScheduler = new NetworkRescanScheduler();
+    private final Long2ObjectLinkedOpenHashMap<PendingBlockUpdate> pendingBlockUpdates = new Long2ObjectLinkedOpenHashMap<>();
+    // Rescans waiting for every member of the network to be loaded
+    private final Set<String> deferredRescans = new HashSet<>();
+    private final LongArrayList pendingAdditions = new LongArrayList();
+    private final List<NetworkElement> pendingRemovals = new ArrayList<>();
+    private boolean batchingChanges;
+    private final NetworkGraphScanner scanner = new NetworkGraphScanner();
+    // Kept between saves so stored sections that didn't change can reuse their encoding
+    private NetworkSectionStorage.StringTable strings = new NetworkSectionStorage.StringTable();
 
     public NetworkManager(Level level) {
         this.level = level;
@@ -67,158 +100,650 @@ public class NetworkManager extends SavedData {
         }
 
         networks.remove(id);
+        storedMembers.removeInt(id);
+        rescanScheduler.cancel(id);
+        deferredRescans.remove(id);
 
         LOGGER.debug("Network {} removed", id);
 
         setDirty();
     }
 
-    private void formNetworkAt(Level level, BlockPos pos, ResourceLocation type) {
-        Network network = NetworkRegistry.INSTANCE.getFactory(type).create(pos);
+    private void formNetworkWith(NetworkElement element) {
+        Network network = NetworkRegistry.INSTANCE.getFactory(element.getNetworkType()).create(element.getPos());
 
+        network.markInitialScanDone();
         addNetwork(network);
 
-        network.scanGraph(level, pos);
+        network.graph.addElement(element);
     }
 
-    private void mergeNetworksIntoOne(Set<NetworkElement> candidates, Level level, BlockPos pos) {
-        if (candidates.isEmpty()) {
-            throw new RuntimeException("Cannot merge networks: no candidates");
-        }
+    private void joinAdjacentNetworks(NetworkElement element, @Nullable Map<Network, Network> deferredMerges) {
+        List<Network> adjacentNetworks = new ArrayList<>();
+        // Neighbours that are still pending in the same batch will find this element once it's their turn.
+        NetworkConnectivity.collectAdjacentGroups(element.getPos().asLong(),
+            pos -> getAdjacentNetwork(pos, element.getNetworkType(), deferredMerges != null), adjacentNetworks);
 
-        Set<Network> networkCandidates = new HashSet<>();
-
-        for (NetworkElement candidate : candidates) {
-            if (candidate.getNetwork() == null) {
-                throw new RuntimeException("Element network is null!");
-            }
+        if (adjacentNetworks.isEmpty()) {
+            formNetworkWith(element);
+        } else {
+            mergeNetworksIntoOne(adjacentNetworks, element, deferredMerges);
+        }
+    }
 
-            networkCandidates.add(candidate.getNetwork());
+    @Nullable
+    private Network getAdjacentNetwork(long pos, ResourceLocation networkType, boolean allowPending) {
+        NetworkElement element = getElement(pos);
+        if (element == null || !element.getNetworkType().equals(networkType)) {
+            return null;
+        }
+        if (element.getNetwork() == null && !allowPending) {
+            throw new RuntimeException("Element network is null!");
         }
+        return element.getNetwork();
+    }
 
-        Iterator<Network> networks = networkCandidates.iterator();
+    /**
+     * Merges the given networks and adds the element to the result, see
+     * {@link NetworkConnectivity#takeBiggestGroup(List, java.util.function.ToIntFunction)} for which one survives.
+     */
+    private void mergeNetworksIntoOne(List<Network> networkCandidates, NetworkElement element, @Nullable Map<Network, Network> deferredMerges) {
+        Network mainNetwork = NetworkConnectivity.takeBiggestGroup(networkCandidates, network -> network.graph.size());
+        if (mainNetwork == null) {
+            throw new RuntimeException("Cannot merge networks: no candidates");
+        }
 
-        Network mainNetwork = networks.next();
+        NetworkMergeEvent event = new NetworkMergeEvent();
+        event.begin();
 
         Set<Network> mergedNetworks = new HashSet<>();
 
-        while (networks.hasNext()) {
-            // Remove all the other networks.
-            Network otherNetwork = networks.next();
-
+        for (Network otherNetwork : networkCandidates) {
             boolean canMerge = mainNetwork.getType().equals(otherNetwork.getType());
 
             if (canMerge) {
                 mergedNetworks.add(otherNetwork);
 
+                mainNetwork.graph.absorb(otherNetwork.graph);
+
                 removeNetwork(otherNetwork.getId());
             }
         }
 
-        mainNetwork.scanGraph(level, pos);
+        mainNetwork.graph.addElement(element);
+
+        if (!mergedNetworks.isEmpty()) {
+            mainNetwork.recordMerge(mergedNetworks.size());
 
-        mergedNetworks.forEach(n -> n.onMergedWith(mainNetwork));
+            if (event.shouldCommit()) {
+                event.networkId = mainNetwork.getId();
+                event.elementCount = mainNetwork.graph.size();
+                event.mergedNetworks = mergedNetworks.size();
+                event.commit();
+            }
+        }
+
+        Network survivor = mainNetwork;
+        if (deferredMerges != null) {
+            mergedNetworks.forEach(n -> deferredMerges.put(n, survivor));
+        } else {
+            mergedNetworks.forEach(n -> n.onMergedWith(survivor));
+        }
     }
 
     public void addElement(NetworkElement matterNetworkElement) {
-        if (elements.containsKey(matterNetworkElement.getPos())) {
+        long pos = matterNetworkElement.getPos().asLong();
+        NetworkSection section = getLoadedSection(NetworkSection.getChunkPos(pos));
+
+        if (elements.containsKey(pos)) {
             throw new RuntimeException("Network element at " + matterNetworkElement.getPos() + " already exists");
         }
 
-        elements.put(matterNetworkElement.getPos(), matterNetworkElement);
+        elements.put(pos, matterNetworkElement);
+        section.getPositions().add(pos);
+        wakeNeighbours(pos);
 
         LOGGER.debug("Network element added at {}", matterNetworkElement.getPos());
 
         setDirty();
 
-        Set<NetworkElement> adjacentElement = findAdjacentElements(matterNetworkElement.getPos(), matterNetworkElement.getNetworkType());
-
-        if (adjacentElement.isEmpty()) {
-            formNetworkAt(matterNetworkElement.getLevel(), matterNetworkElement.getPos(), matterNetworkElement.getNetworkType());
-        } else {
-            mergeNetworksIntoOne(adjacentElement, matterNetworkElement.getLevel(), matterNetworkElement.getPos());
+        if (batchingChanges) {
+            pendingAdditions.add(pos);
+            return;
         }
+
+        joinAdjacentNetworks(matterNetworkElement, null);
     }
 
     public void removeElement(BlockPos pos) {
+        NetworkSection section = sections.get(NetworkSection.getChunkPos(pos.asLong()));
+        if (section != null && !section.isLoaded()) {
+            loadSection(section);
+            if (!batchingChanges) {
+                // The split below needs the restored elements to agree with their neighbours on their network
+                flushPendingChanges();
+            }
+        }
+
         NetworkElement element = getElement(pos);
         if (element == null) {
             throw new RuntimeException("Element at " + pos + " was not found");
         }
 
-        if (element.getNetwork() == null) {
+        if (element.getNetwork() == null && !batchingChanges) {
             LOGGER.warn("Removed element at {} has no associated network", element.getPos());
         }
 
-        elements.remove(element.getPos());
+        elements.remove(element.getPos().asLong());
+        if (section != null) {
+            section.getPositions().remove(element.getPos().asLong());
+        }
+        wakeNeighbours(element.getPos().asLong());
 
         LOGGER.debug("Element removed at {}", element.getPos());
 
         setDirty();
 
+        if (batchingChanges) {
+            if (element.getNetwork() != null) {
+                pendingRemovals.add(element);
+            }
+            return;
+        }
+
         if (element.getNetwork() != null) {
             splitNetworks(element);
         }
     }
 
     private void splitNetworks(NetworkElement originElement) {
-        // Sanity checks
-        for (NetworkElement adjacent : findAdjacentElements(originElement.getPos(), originElement.getNetworkType())) {
-            if (adjacent.getNetwork() == null) {
-                throw new RuntimeException("Adjacent element has no network");
+        Network network = originElement.getNetwork();
+        Set<NetworkElement> adjacentElements = findAdjacentElements(originElement.getPos(), originElement.getNetworkType());
+
+        // Neighbours restored from a section this tick may not be reconciled yet, they are merged or joined at the
+        // next flush and can't be part of this split
+        adjacentElements.removeIf(adjacent -> {
+            if (adjacent.getNetwork() != network) {
+                LOGGER.debug("Skipping adjacent element at {} in network {} while splitting {}", adjacent.getPos(),
+                    adjacent.getNetwork() == null ? null : adjacent.getNetwork().getId(), network.getId());
+                return true;
             }
+            return false;
+        });
+
+        network.graph.removeElement(originElement);
+
+        if (adjacentElements.isEmpty()) {
+            removeNetworkIfAbandoned(network);
+            return;
+        }
+
+        splitOffDisconnectedComponents(network, new ArrayList<>(adjacentElements));
+    }
+
+    /**
+     * Moves every piece of the network that is no longer connected to the rest into its own network and notifies the
+     * original network once. The roots are the elements that were adjacent to whatever got removed.
+     */
+    private void splitOffDisconnectedComponents(Network network, List<NetworkElement> roots) {
+        network.setOriginPos(roots.get(0).getPos());
+        setDirty();
+
+        if (roots.size() == 1) {
+            // A single neighbour can't have been disconnected from anything.
+            return;
+        }
+
+        NetworkSplitEvent event = new NetworkSplitEvent();
+        event.begin();
+
+        List<List<NetworkElement>> components = findDisconnectedComponents(network, roots);
+        if (components.isEmpty()) {
+            return;
+        }
+
+        List<Network> splitNetworks = new ArrayList<>(components.size());
+
+        for (List<NetworkElement> component : components) {
+            Network splitNetwork = NetworkRegistry.INSTANCE.getFactory(network.getType()).create(component.get(0).getPos());
+
+            splitNetwork.markInitialScanDone();
+            addNetwork(splitNetwork);
 
-            if (adjacent.getNetwork() != originElement.getNetwork()) {
-                throw new RuntimeException("The origin element network is different than the adjacent element network");
+            network.graph.moveElementsTo(splitNetwork.graph, component);
+            splitNetworks.add(splitNetwork);
+
+            LOGGER.debug("Split {} elements off network {} into {}", component.size(), network.getId(), splitNetwork.getId());
+        }
+
+        network.recordSplit();
+
+        if (event.shouldCommit()) {
+            event.networkId = network.getId();
+            event.elementCount = network.graph.size();
+            event.splitNetworks = splitNetworks.size();
+            event.commit();
+        }
+
+        network.onSplit(splitNetworks);
+    }
+
+    public boolean isBatchingChanges() {
+        return batchingChanges;
+    }
+
+    /**
+     * While batching, {@link #addElement(NetworkElement)} and {@link #removeElement(BlockPos)} only update the element
+     * index and record the change; networks are resolved once at the end of the tick by {@link #flushPendingChanges()}.
+     * Added elements have no network until then. Turning batching off flushes right away.
+     */
+    public void setBatchingChanges(boolean batchingChanges) {
+        this.batchingChanges = batchingChanges;
+
+        if (!batchingChanges) {
+            flushPendingChanges();
+        }
+    }
+
+    /**
+     * Resolves every change recorded while batching in a single pass: removed elements leave their networks, added
+     * elements join or merge with their neighbours, and every network that lost elements gets one connectivity pass
+     * seeded from the neighbours of everything it lost. Each network gets at most one
+     * {@link Network#onMergedWith(Network)} or {@link Network#onSplit(Collection)} call per flush.
+     */
+    public void flushPendingChanges() {
+        if (pendingAdditions.isEmpty() && pendingRemovals.isEmpty() && pendingReconciles.isEmpty()) {
+            return;
+        }
+
+        Map<Network, LongList> lostPositions = new HashMap<>();
+        for (NetworkElement removed : pendingRemovals) {
+            Network network = removed.getNetwork();
+            if (network == null) {
+                continue;
+            }
+
+            network.graph.removeElement(removed);
+            lostPositions.computeIfAbsent(network, n -> new LongArrayList()).add(removed.getPos().asLong());
+        }
+        pendingRemovals.clear();
+
+        Map<Network, Network> merges = new HashMap<>();
+
+        // Restored elements trust their stored network, but pieces of a network may have been split or merged while
+        // this section was unloaded. Neighbours that ended up in another network get merged back together.
+        for (NetworkElement restored : pendingReconciles) {
+            Network network = restored.getNetwork();
+            if (network == null || elements.get(restored.getPos().asLong()) != restored) {
+                continue;
+            }
+
+            List<Network> networks = new ArrayList<>();
+            networks.add(network);
+            NetworkConnectivity.collectAdjacentGroups(restored.getPos().asLong(),
+                pos -> getAdjacentNetwork(pos, restored.getNetworkType(), true), networks);
+
+            if (networks.size() > 1) {
+                mergeNetworksIntoOne(networks, restored, merges);
             }
         }
+        pendingReconciles.clear();
 
-        // We can assume all adjacent elements (with the same network type) share the same network with the removed element.
-        // That means it doesn't matter which element network we use for splitting, we'll take the first found one.
-        NetworkElement otherElementInNetwork = findFirstAdjacentElement(originElement.getPos(), originElement.getNetworkType());
+        for (int i = 0; i < pendingAdditions.size(); i++) {
+            NetworkElement added = elements.get(pendingAdditions.getLong(i));
+            // Elements that got removed again in the same tick are gone from the index, resolved ones already have a network.
+            if (added != null && added.getNetwork() == null) {
+                joinAdjacentNetworks(added, merges);
+            }
+        }
+        pendingAdditions.clear();
 
-        if (otherElementInNetwork != null) {
-            otherElementInNetwork.getNetwork().setOriginPos(otherElementInNetwork.getPos());
-            setDirty();
+        Map<Network, LongList> lostByNetwork = new HashMap<>();
+        for (Map.Entry<Network, LongList> entry : lostPositions.entrySet()) {
+            lostByNetwork.computeIfAbsent(resolveMerge(merges, entry.getKey()), n -> new LongArrayList()).addAll(entry.getValue());
+        }
 
-            NetworkGraphScannerResult result = otherElementInNetwork.getNetwork().scanGraph(
-                otherElementInNetwork.getLevel(),
-                otherElementInNetwork.getPos()
-            );
+        merges.keySet().forEach(merged -> merged.onMergedWith(resolveMerge(merges, merged)));
 
-            // For sanity checking
-            boolean foundRemovedElement = false;
+        for (Map.Entry<Network, LongList> entry : lostByNetwork.entrySet()) {
+            Network network = entry.getKey();
 
-            for (NetworkElement removed : result.getRemovedElements()) {
-                // It's obvious that our removed element is removed.
-                // We don't want to create a new splitted network for this one.
-                if (removed.getPos().equals(originElement.getPos())) {
-                    foundRemovedElement = true;
-                    continue;
+            if (removeNetworkIfAbandoned(network)) {
+                continue;
+            }
+
+            List<NetworkElement> roots = new ArrayList<>();
+            LongOpenHashSet seen = new LongOpenHashSet();
+            LongList lost = entry.getValue();
+            for (int i = 0; i < lost.size(); i++) {
+                for (Direction dir : Direction.values()) {
+                    long neighbourPos = BlockPos.offset(lost.getLong(i), dir);
+                    NetworkElement neighbour = network.graph.getElement(neighbourPos);
+                    if (neighbour != null && seen.add(neighbourPos)) {
+                        roots.add(neighbour);
+                    }
                 }
+            }
+
+            if (!roots.isEmpty()) {
+                splitOffDisconnectedComponents(network, roots);
+            }
+        }
+    }
+
+    /**
+     * Removes the network once it has no loaded elements left and none waiting in unloaded sections.
+     */
+    private boolean removeNetworkIfAbandoned(Network network) {
+        if (network.graph.size() > 0 || storedMembers.getInt(network.getId()) > 0) {
+            return false;
+        }
+
+        LOGGER.debug("Removing empty network {}", network.getId());
+
+        removeNetwork(network.getId());
+        return true;
+    }
+
+    /**
+     * Follows merges recorded during a flush, a network can be merged into one that got merged away later in the batch.
+     */
+    private static Network resolveMerge(Map<Network, Network> merges, Network network) {
+        Network target;
+        while ((target = merges.get(network)) != null) {
+            network = target;
+        }
+        return network;
+    }
+
+    /**
+     * Called at the end of every tick of the level this manager belongs to.
+     */
+    public void tick() {
+        loadPendingSections();
+        // Restored elements have to agree with their neighbours before a rescan trusts their membership
+        flushPendingChanges();
+        rescanScheduler.run(this::rescanNetwork);
+        // Elements the rescans dropped rejoin their neighbours
+        flushPendingChanges();
+        updateNetworks();
+        // Elements placed or removed by the updates join their networks before the clients hear about it
+        flushPendingChanges();
+        flushBlockUpdates();
+    }
+
+    /**
+     * Records that the element changed networks. Only the first previous network of a position within a tick is kept,
+     * so an element that leaves and joins again in the same tick is compared against where it started.
+     */
+    public void queueBlockUpdate(NetworkElement element, @Nullable Network previous) {
+        long pos = element.getPos().asLong();
+        PendingBlockUpdate pending = pendingBlockUpdates.get(pos);
+
+        if (pending == null || pending.element() != element) {
+            pendingBlockUpdates.put(pos, new PendingBlockUpdate(element, previous));
+        }
+    }
+
+    private void flushBlockUpdates() {
+        if (pendingBlockUpdates.isEmpty()) {
+            return;
+        }
+
+        for (PendingBlockUpdate pending : pendingBlockUpdates.values()) {
+            NetworkElement element = pending.element();
+            if (element.hasClientVisibleChange(pending.previous(), element.getNetwork()) && level.isLoaded(element.getPos())) {
+                element.sendBlockUpdate();
+            }
+        }
+
+        pendingBlockUpdates.clear();
+    }
+
+    /**
+     * Queues a full rescan of the network, rescans run within the time budget of the {@link NetworkRescanScheduler}.
+     */
+    public void scheduleRescan(Network network) {
+        rescanScheduler.schedule(network.getId());
+    }
+
+    public NetworkRescanScheduler getRescanScheduler() {
+        return rescanScheduler;
+    }
+
+    /**
+     * Rebuilds the membership of a network from its origin. Only networks with every member loaded can be trusted to be
+     * scanned, the others wait until their last stored member comes back. Elements that turn out to be disconnected
+     * join their neighbours again at the next flush.
+     */
+    private void rescanNetwork(String id) {
+        Network network = networks.get(id);
+        if (network == null) {
+            return;
+        }
+
+        if (storedMembers.getInt(id) > 0) {
+            deferredRescans.add(id);
+            return;
+        }
+
+        if (network.getElement(network.getOriginPos()) == null) {
+            Iterator<NetworkElement> members = network.graph.getElements().iterator();
+            if (!members.hasNext()) {
+                removeNetworkIfAbandoned(network);
+                return;
+            }
+            network.setOriginPos(members.next().getPos());
+        }
+
+        NetworkGraphScannerResult result = network.scanGraph(level, network.getOriginPos());
+
+        for (NetworkElement removed : result.getRemovedElements()) {
+            long pos = removed.getPos().asLong();
+            if (elements.get(pos) == removed) {
+                pendingAdditions.add(pos);
+            }
+        }
+
+        for (Network previous : result.getPreviousNetworks()) {
+            if (networks.get(previous.getId()) == previous && !removeNetworkIfAbandoned(previous)) {
+                rescanScheduler.schedule(previous.getId());
+            }
+        }
+
+        LOGGER.debug("Rescanned network {}, {} elements left it", id, result.getRemovedElements().size());
 
-                // The formNetworkAt call below can let these removed elements join a network again.
-                // We only have to form a new network when necessary, hence the null check.
-                if (removed.getNetwork() == null) {
-                    formNetworkAt(removed.getLevel(), removed.getPos(), removed.getNetworkType());
+        setDirty();
+    }
+
+    /**
+     * Queues the stored elements of the chunk to be loaded at the end of the tick, doing it right away would run
+     * element factories while the chunk is still being promoted.
+     */
+    public void onChunkLoad(ChunkPos pos) {
+        NetworkSection section = sections.get(pos.toLong());
+        if (section != null && !section.isLoaded()) {
+            pendingSectionLoads.add(pos.toLong());
+        }
+    }
+
+    public void onChunkUnload(ChunkPos pos) {
+        NetworkSection section = sections.get(pos.toLong());
+        if (section != null && section.isLoaded()) {
+            unloadSection(section);
+        }
+    }
+
+    private void loadPendingSections() {
+        for (int i = 0; i < pendingSectionLoads.size(); i++) {
+            long chunkPos = pendingSectionLoads.getLong(i);
+            NetworkSection section = sections.get(chunkPos);
+
+            if (section != null && !section.isLoaded() && level.getChunkSource().hasChunk(ChunkPos.getX(chunkPos), ChunkPos.getZ(chunkPos))) {
+                loadSection(section);
+            }
+        }
+        pendingSectionLoads.clear();
+    }
+
+    private NetworkSection getLoadedSection(long chunkPos) {
+        NetworkSection section = sections.get(chunkPos);
+
+        if (section == null) {
+            section = new NetworkSection(chunkPos, null);
+            sections.put(chunkPos, section);
+        } else if (!section.isLoaded()) {
+            loadSection(section);
+        }
+
+        return section;
+    }
+
+    /**
+     * Brings the stored elements of a section back. Elements rejoin the network they were stored with, the ones whose
+     * network is gone join their neighbours at the next flush like newly placed elements would.
+     */
+    private void loadSection(NetworkSection section) {
+        section.takeStoredElements().forEach(elementTag -> loadStoredElement(section, elementTag));
+
+        LOGGER.debug("Loaded {} elements of chunk {}", section.getPositions().size(), new ChunkPos(section.getChunkPos()));
+    }
+
+    /**
+     * Restores a stored element into its stored network. This is the cheap validation pass: the network id and type
+     * are checked here and neighbours are reconciled at the next flush, an element that can't be restored anymore
+     * leaves a possible gap in its network, which gets a full rescan once all of it is loaded.
+     */
+    private void loadStoredElement(NetworkSection section, CompoundTag elementTag) {
+        Network network = null;
+        if (elementTag.contains("network")) {
+            String networkId = elementTag.getString("network");
+            if (storedMembers.addTo(networkId, -1) <= 1) {
+                storedMembers.removeInt(networkId);
+                if (deferredRescans.remove(networkId)) {
+                    rescanScheduler.schedule(networkId);
                 }
             }
+            network = networks.get(networkId);
+        }
 
-            if (!foundRemovedElement) {
-                throw new RuntimeException("Didn't find removed element when splitting network");
+        NetworkElement element = createElement(elementTag);
+        if (element == null) {
+            if (network != null) {
+                rescanScheduler.schedule(network.getId());
             }
+            return;
+        }
+
+        long pos = element.getPos().asLong();
+        if (elements.putIfAbsent(pos, element) != null) {
+            LOGGER.warn("Skipping duplicate element at {}", element.getPos());
+            return;
+        }
+        section.getPositions().add(pos);
+
+        if (network != null && network.getType().equals(element.getNetworkType())) {
+            network.graph.addElement(element);
+            pendingReconciles.add(element);
         } else {
-            LOGGER.debug("Removing empty network {}", originElement.getNetwork().getId());
+            pendingAdditions.add(pos);
+        }
+    }
+
+    /**
+     * Stores the elements of a section whose chunk unloaded. They are dropped from their networks without splitting
+     * them or notifying anyone, the networks keep them as members in storage.
+     */
+    private void unloadSection(NetworkSection section) {
+        NetworkSectionStorage stored = new NetworkSectionStorage();
+        int unloaded = 0;
+
+        LongIterator positions = section.getPositions().iterator();
+        while (positions.hasNext()) {
+            NetworkElement element = elements.remove(positions.nextLong());
+            if (element == null) {
+                continue;
+            }
+
+            stored.add(writeElement(element));
+            unloaded++;
+
+            Network network = element.getNetwork();
+            if (network != null) {
+                network.graph.unloadElement(element);
+                storedMembers.addTo(network.getId(), 1);
+            }
+        }
+
+        section.store(stored);
+
+        if (section.isEmpty()) {
+            sections.remove(section.getChunkPos());
+        }
+
+        LOGGER.debug("Unloaded {} elements of chunk {}", unloaded, new ChunkPos(section.getChunkPos()));
+    }
+
+    @Nullable
+    private NetworkElement createElement(CompoundTag elementTag) {
+        ResourceLocation factoryId = new ResourceLocation(elementTag.getString("id"));
 
-            removeNetwork(originElement.getNetwork().getId());
+        NetworkElementFactory factory = NetworkElementRegistry.INSTANCE.getFactory(factoryId);
+        if (factory == null) {
+            LOGGER.warn("Element {} no longer exists", factoryId.toString());
+            return null;
+        }
+
+        return factory.createFromNbt(level, elementTag);
+    }
+
+    private CompoundTag writeElement(NetworkElement element) {
+        CompoundTag elementTag = new CompoundTag();
+        elementTag.putString("id", element.getId().toString());
+        if (element.getNetwork() != null) {
+            elementTag.putString("network", element.getNetwork().getId());
+        }
+        return element.writeToNbt(elementTag);
+    }
+
+    /**
+     * Finds the pieces of the network that are no longer connected to the biggest remaining piece, see
+     * {@link NetworkConnectivity#findDisconnectedComponents(NetworkWorldAccess, long[])}.
+     */
+    private List<List<NetworkElement>> findDisconnectedComponents(Network network, List<NetworkElement> roots) {
+        long[] rootPositions = new long[roots.size()];
+        for (int i = 0; i < rootPositions.length; i++) {
+            rootPositions[i] = roots.get(i).getPos().asLong();
+        }
+
+        List<LongArrayList> components = NetworkConnectivity.findDisconnectedComponents(pos -> network.graph.getElement(pos) != null, rootPositions);
+
+        List<List<NetworkElement>> elementComponents = new ArrayList<>(components.size());
+        for (LongArrayList component : components) {
+            List<NetworkElement> elementComponent = new ArrayList<>(component.size());
+            for (int i = 0; i < component.size(); i++) {
+                elementComponent.add(network.graph.getElement(component.getLong(i)));
+            }
+            elementComponents.add(elementComponent);
+        }
+        return elementComponents;
+    }
+
+    private void wakeNeighbours(long pos) {
+        for (Direction dir : Direction.values()) {
+            NetworkElement neighbour = elements.get(BlockPos.offset(pos, dir));
+            if (neighbour != null) {
+                neighbour.wake();
+            }
         }
     }
 
     private Set<NetworkElement> findAdjacentElements(BlockPos pos, ResourceLocation networkType) {
         Set<NetworkElement> elements = new HashSet<>();
 
+        long origin = pos.asLong();
         for (Direction dir : Direction.values()) {
-            NetworkElement element = getElement(pos.relative(dir));
+            NetworkElement element = getElement(BlockPos.offset(origin, dir));
 
             if (element != null && element.getNetworkType().equals(networkType)) {
                 elements.add(element);
@@ -228,22 +753,55 @@ public class NetworkManager extends SavedData {
         return elements;
     }
 
+    /**
+     * The amount of elements of the given network that are kept in unloaded chunks.
+     */
+    public int getStoredElementCount(String networkId) {
+        return storedMembers.getInt(networkId);
+    }
+
     @Nullable
-    private NetworkElement findFirstAdjacentElement(BlockPos pos, ResourceLocation networkType) {
-        for (Direction dir : Direction.values()) {
-            NetworkElement element = getElement(pos.relative(dir));
+    public NetworkElement getElement(BlockPos pos) {
+        return elements.get(pos.asLong());
+    }
 
-            if (element != null && element.getNetworkType().equals(networkType)) {
-                return element;
+    @Nullable
+    public NetworkElement getElement(long pos) {
+        return elements.get(pos);
+    }
+
+    /**
+     * Updates every network of this level, called by {@link #tick()} at the end of every world tick. Element updates run
+     * on the server thread as before, then every {@link ParallelNetworkTick} the networks prepared computes on the common
+     * fork join pool, and finally the results are applied back on the server thread.
+     */
+    public void updateNetworks() {
+        List<ParallelNetworkTick> parallelTicks = new ArrayList<>();
+
+        // Element updates may place or remove elements, which can add or remove networks.
+        for (Network network : new ArrayList<>(networks.values())) {
+            network.update(level);
+
+            ParallelNetworkTick parallelTick = network.prepareParallelTick(level);
+            if (parallelTick != null) {
+                parallelTicks.add(parallelTick);
             }
         }
 
-        return null;
+        if (parallelTicks.size() == 1) {
+            parallelTicks.get(0).compute();
+        } else if (!parallelTicks.isEmpty()) {
+            parallelTicks.parallelStream().forEach(ParallelNetworkTick::compute);
+        }
+
+        parallelTicks.forEach(parallelTick -> parallelTick.apply(level));
     }
 
-    @Nullable
-    public NetworkElement getElement(BlockPos pos) {
-        return elements.get(pos);
+    /**
+     * The scanner shared by every network of this level, reused between scans to avoid allocating per probe.
+     */
+    public NetworkGraphScanner getScanner() {
+        return scanner;
     }
 
     public Collection<Network> getNetworks() {
@@ -251,22 +809,9 @@ public class NetworkManager extends SavedData {
     }
 
     public void load(CompoundTag tag) {
-        ListTag elements = tag.getList("elements", Tag.TAG_COMPOUND);
-        for (Tag elementTag : elements) {
-            CompoundTag elementTagCompound = (CompoundTag) elementTag;
-
-
-            ResourceLocation factoryId = new ResourceLocation(elementTagCompound.getString("id"));
-
-            NetworkElementFactory factory = NetworkElementRegistry.INSTANCE.getFactory(factoryId);
-            if (factory == null) {
-                LOGGER.warn("Element {} no longer exists", factoryId.toString());
-                continue;
-            }
-
-            NetworkElement element = factory.createFromNbt(level, elementTagCompound);
-
-            this.elements.put(element.getPos(), element);
+        int version = tag.getInt("version");
+        if (version >= 2) {
+            strings = new NetworkSectionStorage.StringTable(NetworkSectionStorage.StringTable.read(tag.getList("strings", Tag.TAG_STRING)));
         }
 
         ListTag nets = tag.getList("networks", Tag.TAG_COMPOUND);
@@ -277,7 +822,7 @@ public class NetworkManager extends SavedData {
                 continue;
             }
 
-            ResourceLocation type = new ResourceLocation(netTagCompound.getString("type"));
+            ResourceLocation type = new ResourceLocation(version >= 2 ? strings.get(netTagCompound.getInt("type")) : netTagCompound.getString("type"));
 
             NetworkFactory factory = NetworkRegistry.INSTANCE.getFactory(type);
             if (factory == null) {
@@ -286,32 +831,129 @@ public class NetworkManager extends SavedData {
             }
 
             Network network = factory.create(netTagCompound);
+            network.markInitialScanDone();
 
             networks.put(network.getId(), network);
         }
 
-        LOGGER.debug("Read {} elements", elements.size());
+        if (version >= 2) {
+            ListTag sections = tag.getList("sections", Tag.TAG_COMPOUND);
+            for (Tag sectionTag : sections) {
+                CompoundTag sectionTagCompound = (CompoundTag) sectionTag;
+                long chunkPos = sectionTagCompound.getLong("chunk");
+                NetworkSectionStorage storage = NetworkSectionStorage.read(sectionTagCompound, strings);
+
+                storage.countMembers(storedMembers);
+                this.sections.put(chunkPos, new NetworkSection(chunkPos, storage));
+            }
+        } else {
+            loadLegacyElements(tag.getList("elements", Tag.TAG_COMPOUND));
+        }
+
+        // A network without any stored member can never get an element back.
+        networks.values().removeIf(network -> {
+            if (!storedMembers.containsKey(network.getId())) {
+                LOGGER.debug("Dropping network {} without members", network.getId());
+                return true;
+            }
+            return false;
+        });
+
+        LOGGER.debug("Read {} sections", sections.size());
         LOGGER.debug("Read {} networks", networks.size());
     }
 
+    /**
+     * Elements saved before they were stored per chunk don't know their network. The element sitting at the origin of
+     * a network is given that network so it can seed it again, the others rejoin their neighbours once loaded.
+     */
+    private void loadLegacyElements(ListTag elements) {
+        Long2ObjectOpenHashMap<String> networkOrigins = new Long2ObjectOpenHashMap<>();
+        networks.values().forEach(network -> networkOrigins.putIfAbsent(network.getOriginPos().asLong(), network.getId()));
+
+        for (Tag elementTag : elements) {
+            CompoundTag elementTagCompound = (CompoundTag) elementTag;
+            long pos = elementTagCompound.getLong("pos");
+
+            String networkId = networkOrigins.get(pos);
+            if (networkId != null) {
+                elementTagCompound.putString("network", networkId);
+                storedMembers.addTo(networkId, 1);
+            }
+
+            long chunkPos = NetworkSection.getChunkPos(pos);
+            NetworkSection section = sections.get(chunkPos);
+            if (section == null) {
+                section = new NetworkSection(chunkPos, new NetworkSectionStorage());
+                sections.put(chunkPos, section);
+            }
+            section.getStoredElements().add(elementTagCompound);
+        }
+    }
+
     @Override
     public CompoundTag save(CompoundTag tag) {
-        ListTag elements = new ListTag();
-        this.elements.values().forEach(p -> {
-            CompoundTag elementTag = new CompoundTag();
-            elementTag.putString("id", p.getId().toString());
-            elements.add(p.writeToNbt(elementTag));
-        });
-        tag.put("elements", elements);
+        NetworkSaveEvent event = new NetworkSaveEvent();
+        event.begin();
+
+        // Ids of networks that are gone stay in the table, start over once most of it is dead weight. Every stored
+        // section gets encoded again for that one save.
+        if (strings.size() > 4 * (this.networks.size() + 64)) {
+            strings = new NetworkSectionStorage.StringTable();
+        }
+
+        ListTag sections = new ListTag();
+        for (NetworkSection section : this.sections.values()) {
+            NetworkSectionStorage storage = section.isLoaded() ? writeSection(section) : section.getStoredElements();
+            if (storage.isEmpty()) {
+                continue;
+            }
+
+            CompoundTag sectionTag = storage.write(strings);
+            sectionTag.putLong("chunk", section.getChunkPos());
+            sections.add(sectionTag);
+        }
 
         ListTag networks = new ListTag();
         this.networks.values().forEach(n -> {
             CompoundTag networkTag = new CompoundTag();
-            networkTag.putString("type", n.getType().toString());
+            networkTag.putInt("type", strings.indexOf(n.getType().toString()));
             networks.add(n.writeToNbt(networkTag));
         });
+
+        tag.putInt("version", VERSION);
+        tag.put("strings", strings.getTag());
+        tag.put("sections", sections);
         tag.put("networks", networks);
 
+        if (event.shouldCommit()) {
+            event.dimension = level.dimension().location().toString();
+            event.networkCount = this.networks.size();
+            int storedElements = 0;
+            for (IntIterator counts = storedMembers.values().iterator(); counts.hasNext(); ) {
+                storedElements += counts.nextInt();
+            }
+            event.elementCount = elements.size() + storedElements;
+            event.commit();
+        }
+
         return tag;
     }
+
+    private record PendingBlockUpdate(NetworkElement element, @Nullable Network previous) {
+    }
+
+    private NetworkSectionStorage writeSection(NetworkSection section) {
+        NetworkSectionStorage storage = new NetworkSectionStorage();
+
+        LongIterator positions = section.getPositions().iterator();
+        while (positions.hasNext()) {
+            NetworkElement element = this.elements.get(positions.nextLong());
+            if (element != null) {
+                storage.add(writeElement(element));
+            }
+        }
+
+        return storage;
+    }
 }
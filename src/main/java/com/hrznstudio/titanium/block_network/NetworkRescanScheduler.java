@@ -0,0 +1,66 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Spreads full network rescans over several ticks. Every tick rescans queued networks until the time budget runs out,
+ * at least one network is always rescanned so the queue keeps moving even when a single scan is over budget.
+ */
+public class NetworkRescanScheduler {
+    public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final Set<String> queue = new LinkedHashSet<>();
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    public void schedule(String networkId) {
+        queue.add(networkId);
+    }
+
+    public void cancel(String networkId) {
+        queue.remove(networkId);
+    }
+
+    public boolean isScheduled(String networkId) {
+        return queue.contains(networkId);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public void run(Consumer<String> rescan) {
+        long start = System.nanoTime();
+
+        while (!queue.isEmpty()) {
+            // Take the head before rescanning, a rescan is allowed to schedule other networks.
+            Iterator<String> iterator = queue.iterator();
+            String networkId = iterator.next();
+            iterator.remove();
+
+            rescan.accept(networkId);
+
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+
+import javax.annotation.Nullable;
+
+/**
+ * The network elements of a single chunk. While the chunk is loaded the section only tracks the positions of its live
+ * elements, once it unloads the elements are encoded and kept as stored data until the chunk comes back.
+ */
+public class NetworkSection {
+    private final long chunkPos;
+    private final LongOpenHashSet positions = new LongOpenHashSet();
+    @Nullable
+    private NetworkSectionStorage storedElements;
+
+    public NetworkSection(long chunkPos, @Nullable NetworkSectionStorage storedElements) {
+        this.chunkPos = chunkPos;
+        this.storedElements = storedElements;
+    }
+
+    public static long getChunkPos(long blockPos) {
+        return ChunkPos.asLong(SectionPos.blockToSectionCoord(BlockPos.getX(blockPos)), SectionPos.blockToSectionCoord(BlockPos.getZ(blockPos)));
+    }
+
+    public long getChunkPos() {
+        return chunkPos;
+    }
+
+    public boolean isLoaded() {
+        return storedElements == null;
+    }
+
+    /**
+     * Positions of the live elements, only meaningful while the section is loaded.
+     */
+    public LongOpenHashSet getPositions() {
+        return positions;
+    }
+
+    @Nullable
+    public NetworkSectionStorage getStoredElements() {
+        return storedElements;
+    }
+
+    /**
+     * Hands the stored elements over to be loaded and marks the section as loaded.
+     */
+    public NetworkSectionStorage takeStoredElements() {
+        NetworkSectionStorage stored = storedElements == null ? new NetworkSectionStorage() : storedElements;
+        storedElements = null;
+        return stored;
+    }
+
+    public void store(NetworkSectionStorage elements) {
+        positions.clear();
+        positions.trim();
+        storedElements = elements;
+    }
+
+    public boolean isEmpty() {
+        return isLoaded() ? positions.isEmpty() : storedElements.isEmpty();
+    }
+}
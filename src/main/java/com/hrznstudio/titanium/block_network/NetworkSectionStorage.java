@@ -0,0 +1,218 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The stored elements of a section. Elements that only save their position are grouped by element id and network and
+ * kept as packed positions, anything that writes extra data is kept as its full tag.
+ * <p>
+ * The encoded tag is kept until the elements change, so a section that stays unloaded is only encoded once no matter
+ * how often the level saves.
+ */
+public class NetworkSectionStorage {
+    private static final Set<String> PACKED_KEYS = Set.of("id", "network", "pos");
+    private static final String NO_NETWORK = "";
+
+    private final List<String> types = new ArrayList<>();
+    private final List<String> networks = new ArrayList<>();
+    private final List<LongArrayList> positions = new ArrayList<>();
+    private final ListTag extra = new ListTag();
+    // The last encoding and the table its indices point into, dropped when the elements change
+    private CompoundTag encoded;
+    private StringTable encodedWith;
+
+    public void add(CompoundTag elementTag) {
+        encoded = null;
+        encodedWith = null;
+        if (!PACKED_KEYS.containsAll(elementTag.getAllKeys())) {
+            extra.add(elementTag);
+            return;
+        }
+
+        String type = elementTag.getString("id");
+        String network = elementTag.getString("network");
+        long pos = elementTag.getLong("pos");
+
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).equals(type) && networks.get(i).equals(network)) {
+                positions.get(i).add(pos);
+                return;
+            }
+        }
+
+        LongArrayList groupPositions = new LongArrayList();
+        groupPositions.add(pos);
+
+        types.add(type);
+        networks.add(network);
+        positions.add(groupPositions);
+    }
+
+    /**
+     * Hands every stored element to the consumer in the same tag layout it was added with.
+     */
+    public void forEach(Consumer<CompoundTag> consumer) {
+        for (int i = 0; i < types.size(); i++) {
+            String type = types.get(i);
+            String network = networks.get(i);
+            LongArrayList groupPositions = positions.get(i);
+
+            for (int j = 0; j < groupPositions.size(); j++) {
+                CompoundTag elementTag = new CompoundTag();
+                elementTag.putString("id", type);
+                if (!NO_NETWORK.equals(network)) {
+                    elementTag.putString("network", network);
+                }
+                elementTag.putLong("pos", groupPositions.getLong(j));
+                consumer.accept(elementTag);
+            }
+        }
+
+        for (Tag elementTag : extra) {
+            consumer.accept((CompoundTag) elementTag);
+        }
+    }
+
+    public void countMembers(Object2IntOpenHashMap<String> members) {
+        for (int i = 0; i < types.size(); i++) {
+            if (!NO_NETWORK.equals(networks.get(i))) {
+                members.addTo(networks.get(i), positions.get(i).size());
+            }
+        }
+
+        for (Tag elementTag : extra) {
+            CompoundTag elementTagCompound = (CompoundTag) elementTag;
+            if (elementTagCompound.contains("network")) {
+                members.addTo(elementTagCompound.getString("network"), 1);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return types.isEmpty() && extra.isEmpty();
+    }
+
+    /**
+     * Whether the elements changed since they were last encoded with the given table.
+     */
+    public boolean isDirty(StringTable strings) {
+        return encoded == null || encodedWith != strings;
+    }
+
+    public CompoundTag write(StringTable strings) {
+        if (!isDirty(strings)) {
+            return encoded;
+        }
+
+        int[] typeIndices = new int[types.size()];
+        int[] networkIndices = new int[types.size()];
+        ListTag positionTags = new ListTag();
+
+        for (int i = 0; i < types.size(); i++) {
+            typeIndices[i] = strings.indexOf(types.get(i));
+            networkIndices[i] = NO_NETWORK.equals(networks.get(i)) ? -1 : strings.indexOf(networks.get(i));
+            positionTags.add(new LongArrayTag(positions.get(i).toLongArray()));
+        }
+
+        CompoundTag tag = new CompoundTag();
+        tag.put("types", new IntArrayTag(typeIndices));
+        tag.put("networks", new IntArrayTag(networkIndices));
+        tag.put("positions", positionTags);
+        if (!extra.isEmpty()) {
+            tag.put("extra", extra);
+        }
+
+        encoded = tag;
+        encodedWith = strings;
+        return tag;
+    }
+
+    public static NetworkSectionStorage read(CompoundTag tag, StringTable strings) {
+        NetworkSectionStorage storage = new NetworkSectionStorage();
+
+        int[] typeIndices = tag.getIntArray("types");
+        int[] networkIndices = tag.getIntArray("networks");
+        ListTag positionTags = tag.getList("positions", Tag.TAG_LONG_ARRAY);
+
+        for (int i = 0; i < typeIndices.length; i++) {
+            storage.types.add(strings.get(typeIndices[i]));
+            storage.networks.add(networkIndices[i] == -1 ? NO_NETWORK : strings.get(networkIndices[i]));
+            storage.positions.add(LongArrayList.wrap(((LongArrayTag) positionTags.get(i)).getAsLongArray()));
+        }
+
+        storage.extra.addAll(tag.getList("extra", Tag.TAG_COMPOUND));
+
+        // The tag that was read is still a valid encoding as long as the same table is used to save
+        storage.encoded = tag;
+        storage.encodedWith = strings;
+
+        return storage;
+    }
+
+    /**
+     * Strings shared by a whole save, so ids repeated by thousands of elements are only written once. The table is kept
+     * between saves, indices never change so stored sections can keep their encoding.
+     */
+    public static class StringTable {
+        private final Object2IntOpenHashMap<String> indices = new Object2IntOpenHashMap<>();
+        private final ListTag strings = new ListTag();
+
+        public StringTable() {
+            indices.defaultReturnValue(-1);
+        }
+
+        public StringTable(List<String> values) {
+            this();
+            values.forEach(this::indexOf);
+        }
+
+        public String get(int index) {
+            return strings.getString(index);
+        }
+
+        public int size() {
+            return strings.size();
+        }
+
+        public int indexOf(String value) {
+            int index = indices.getInt(value);
+            if (index == -1) {
+                index = strings.size();
+                strings.add(StringTag.valueOf(value));
+                indices.put(value, index);
+            }
+            return index;
+        }
+
+        public ListTag getTag() {
+            return strings;
+        }
+
+        public static List<String> read(ListTag tag) {
+            List<String> strings = new ArrayList<>(tag.size());
+            for (int i = 0; i < tag.size(); i++) {
+                strings.add(tag.getString(i));
+            }
+            return strings;
+        }
+    }
+}
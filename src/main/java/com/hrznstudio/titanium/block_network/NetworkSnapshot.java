@@ -0,0 +1,54 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import com.hrznstudio.titanium.block_network.graph.NetworkGraph;
+import com.hrznstudio.titanium.block_network.graph.NetworkWorldAccess;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * A read-only copy of the members of a network and the storages next to them, captured on the server thread for a
+ * {@link ParallelNetworkTick}. Nothing the network does afterwards shows up in it, so a worker can read it while the
+ * server keeps changing the network.
+ *
+ * @param <S> what the network keeps for each neighbouring storage
+ */
+public final class NetworkSnapshot<S> implements NetworkWorldAccess {
+    private final LongOpenHashSet members;
+    private final Long2ObjectOpenHashMap<List<S>> storages;
+
+    private NetworkSnapshot(LongOpenHashSet members, Long2ObjectOpenHashMap<List<S>> storages) {
+        this.members = members;
+        this.storages = storages;
+    }
+
+    public static <S> NetworkSnapshot<S> capture(NetworkGraph graph, NeighbourStorages<S> storages) {
+        return new NetworkSnapshot<>(graph.copyPositions(), storages.copy());
+    }
+
+    @Override
+    public boolean isMember(long pos) {
+        return members.contains(pos);
+    }
+
+    /**
+     * @return the storages next to the element at the given position, or null if it had none
+     */
+    @Nullable
+    public List<S> getStorages(long elementPos) {
+        return storages.get(elementPos);
+    }
+
+    public int size() {
+        return members.size();
+    }
+}
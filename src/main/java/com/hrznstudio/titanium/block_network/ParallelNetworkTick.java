@@ -0,0 +1,27 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network;
+
+import net.minecraft.world.level.Level;
+
+/**
+ * One tick of a network split in two phases, created by {@link Network#prepareParallelTick(Level)} on the server thread.
+ * Whatever the computation needs has to be captured when it's created, networks are disjoint so the computations of
+ * different networks can run at the same time.
+ */
+public interface ParallelNetworkTick {
+    /**
+     * Runs on a worker thread. Must only read the state captured on creation, never the level or other networks.
+     */
+    void compute();
+
+    /**
+     * Runs on the server thread once every network finished computing, this is where results touch the world.
+     */
+    void apply(Level level);
+}
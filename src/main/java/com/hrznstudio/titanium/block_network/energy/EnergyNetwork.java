@@ -0,0 +1,373 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.energy;
+
+import com.hrznstudio.titanium.block_network.NeighbourStorageNetwork;
+import com.hrznstudio.titanium.block_network.NeighbourStorages;
+import com.hrznstudio.titanium.block_network.Network;
+import com.hrznstudio.titanium.block_network.NetworkFactory;
+import com.hrznstudio.titanium.block_network.NetworkManager;
+import com.hrznstudio.titanium.block_network.ParallelNetworkTick;
+import io.github.fabricators_of_create.porting_lib.transfer.TransferUtil;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
+import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
+import net.fabricmc.fabric.api.transfer.v1.transaction.base.SnapshotParticipant;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import team.reborn.energy.api.EnergyStorage;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A network that pools the energy of all its elements into one buffer. Elements register the energy storages next to
+ * them as endpoints, every tick the network pulls from the endpoints that only produce and spreads the buffer evenly over
+ * the endpoints that accept energy, so the work per tick depends on the amount of endpoints and not on the cable length.
+ * Endpoints that both accept and give energy, like batteries, act as producers while the consumers want more than the
+ * network holds and as consumers while it has energy to spare.
+ * <p>
+ * The endpoints are read into an immutable snapshot on the server thread, the transfers are planned from it off the
+ * server thread, and the plan is carried out through the endpoints back on the server thread.
+ * <p>
+ * Cables expose the buffer through {@link #getEnergyStorage()}, machines like generators can push into it on their own.
+ */
+public class EnergyNetwork extends Network implements NeighbourStorageNetwork<EnergyNetwork.Endpoint> {
+    private final ResourceLocation type;
+    private final long capacityPerElement;
+    private final Buffer buffer = new Buffer();
+    // Endpoints by the position of the element that is touching them
+    private final NeighbourStorages<Endpoint> endpoints = new NeighbourStorages<>();
+    private long energy;
+    // The energy the manager was last marked dirty with, any difference gets saved
+    private long savedEnergy;
+
+    public EnergyNetwork(BlockPos originPos, String id, ResourceLocation type, long capacityPerElement) {
+        super(originPos, id);
+        this.type = type;
+        this.capacityPerElement = capacityPerElement;
+    }
+
+    /**
+     * Creates a factory to register in the {@link com.hrznstudio.titanium.block_network.NetworkRegistry} for an energy
+     * network type, every element adds the given amount of capacity to the buffer.
+     */
+    public static NetworkFactory factory(ResourceLocation type, long capacityPerElement) {
+        return new NetworkFactory() {
+            @Override
+            public Network create(BlockPos pos) {
+                return new EnergyNetwork(pos, NetworkFactory.randomString(new Random(), 8), type, capacityPerElement);
+            }
+
+            @Override
+            public Network create(CompoundTag tag) {
+                EnergyNetwork network = new EnergyNetwork(BlockPos.of(tag.getLong("origin")), tag.getString("id"), type, capacityPerElement);
+                network.energy = tag.getLong("energy");
+                network.savedEnergy = network.energy;
+                return network;
+            }
+        };
+    }
+
+    public EnergyStorage getEnergyStorage() {
+        return buffer;
+    }
+
+    public long getEnergy() {
+        return energy;
+    }
+
+    public long getCapacity() {
+        return capacityPerElement * graph.size();
+    }
+
+    @Override
+    public NeighbourStorages<Endpoint> getNeighbourStorages() {
+        return endpoints;
+    }
+
+    public int getEndpointCount() {
+        return endpoints.count();
+    }
+
+    @Override
+    public void update(Level level) {
+        super.update(level);
+        saveIfChanged(level);
+    }
+
+    private void saveIfChanged(Level level) {
+        if (energy != savedEnergy) {
+            savedEnergy = energy;
+            NetworkManager.get(level).setDirty();
+        }
+    }
+
+    @Nullable
+    @Override
+    public ParallelNetworkTick prepareParallelTick(Level level) {
+        if (endpoints.isEmpty()) {
+            return null;
+        }
+
+        List<EnergyStorage> storages = new ArrayList<>();
+        List<EndpointState> states = new ArrayList<>();
+
+        ObjectIterator<Long2ObjectMap.Entry<List<Endpoint>>> iterator = endpoints.iterator();
+        while (iterator.hasNext()) {
+            Long2ObjectMap.Entry<List<Endpoint>> entry = iterator.next();
+            // Elements of unloaded chunks leave the graph silently, their endpoints go with them
+            if (graph.getElement(entry.getLongKey()) == null) {
+                iterator.remove();
+                continue;
+            }
+
+            List<Endpoint> elementEndpoints = entry.getValue();
+            for (int i = 0; i < elementEndpoints.size(); i++) {
+                EnergyStorage storage = elementEndpoints.get(i).find();
+                if (storage != null) {
+                    storages.add(storage);
+                    states.add(new EndpointState(storage.supportsInsertion(), storage.supportsExtraction(), storage.getAmount(), storage.getCapacity()));
+                }
+            }
+        }
+
+        if (storages.isEmpty()) {
+            return null;
+        }
+        return new Transfer(storages, new Snapshot(energy, getCapacity(), List.copyOf(states)));
+    }
+
+    @Override
+    public CompoundTag writeToNbt(CompoundTag tag) {
+        super.writeToNbt(tag);
+        tag.putLong("energy", energy);
+
+        return tag;
+    }
+
+    @Override
+    public void onMergedWith(Network mainNetwork) {
+        // Not clamped to the capacity, it only counts loaded elements and members in unloaded chunks still hold energy
+        if (mainNetwork instanceof EnergyNetwork energyNetwork) {
+            energyNetwork.energy += energy;
+        }
+        energy = 0;
+    }
+
+    @Override
+    public void onSplit(Collection<Network> splitNetworks) {
+        long total = graph.size();
+        for (Network splitNetwork : splitNetworks) {
+            if (splitNetwork instanceof EnergyNetwork energyNetwork) {
+                total += energyNetwork.graph.size();
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+
+        // Each piece keeps the part of the buffer its elements made up
+        long remaining = energy;
+        for (Network splitNetwork : splitNetworks) {
+            if (splitNetwork instanceof EnergyNetwork energyNetwork) {
+                long share = (long) ((double) energy * energyNetwork.graph.size() / total);
+                energyNetwork.energy += share;
+                remaining -= share;
+            }
+        }
+        energy = remaining;
+    }
+
+    @Override
+    public ResourceLocation getType() {
+        return type;
+    }
+
+    /**
+     * An energy storage next to an element, looked up through a cache so finding it every tick stays cheap.
+     */
+    public record Endpoint(BlockApiCache<EnergyStorage, Direction> cache, Direction side) {
+        public EnergyStorage find() {
+            return cache.find(side);
+        }
+    }
+
+    /**
+     * What the endpoints looked like when the tick was prepared.
+     */
+    private record Snapshot(long energy, long capacity, List<EndpointState> endpoints) {
+    }
+
+    private record EndpointState(boolean insertion, boolean extraction, long amount, long capacity) {
+        long room() {
+            return Math.max(0, capacity - amount);
+        }
+    }
+
+    /**
+     * Plans how much to take from and give to every endpoint from the snapshot, then moves the energy through the
+     * endpoints. The endpoints only ever move what they actually accept, so a plan that went stale costs nothing.
+     */
+    private class Transfer implements ParallelNetworkTick {
+        private final List<EnergyStorage> storages;
+        private final Snapshot snapshot;
+        private final long[] extract;
+        private final long[] insert;
+
+        private Transfer(List<EnergyStorage> storages, Snapshot snapshot) {
+            this.storages = storages;
+            this.snapshot = snapshot;
+            this.extract = new long[storages.size()];
+            this.insert = new long[storages.size()];
+        }
+
+        @Override
+        public void compute() {
+            List<EndpointState> states = snapshot.endpoints();
+            long pooled = snapshot.energy();
+            long room = Math.max(0, snapshot.capacity() - pooled);
+
+            int[] consumers = new int[states.size()];
+            int consumerCount = 0;
+            long demand = 0;
+            for (int i = 0; i < states.size(); i++) {
+                EndpointState state = states.get(i);
+                if (state.insertion() && !state.extraction()) {
+                    consumers[consumerCount++] = i;
+                    demand += Math.min(state.room(), Long.MAX_VALUE - demand);
+                } else if (state.extraction() && !state.insertion() && room > 0) {
+                    long extracted = Math.min(state.amount(), room);
+                    extract[i] = extracted;
+                    room -= extracted;
+                    pooled += extracted;
+                }
+            }
+
+            // Storages that go both ways cover what the producers couldn't, or take what the consumers left over
+            int pureConsumerCount = consumerCount;
+            boolean drainBidirectional = pooled < demand;
+            long missing = Math.min(demand - pooled, room);
+            for (int i = 0; i < states.size(); i++) {
+                EndpointState state = states.get(i);
+                if (!state.insertion() || !state.extraction()) {
+                    continue;
+                }
+                if (!drainBidirectional) {
+                    consumers[consumerCount++] = i;
+                } else if (missing > 0) {
+                    long extracted = Math.min(state.amount(), missing);
+                    extract[i] = extracted;
+                    missing -= extracted;
+                    pooled += extracted;
+                }
+            }
+
+            pooled = distribute(consumers, 0, pureConsumerCount, pooled);
+            distribute(consumers, pureConsumerCount, consumerCount, pooled);
+        }
+
+        /**
+         * Gives every consumer in the range an even share, the ones with the least room go first so what they can't take
+         * is spread over the others.
+         *
+         * @return what is left of the pooled energy
+         */
+        private long distribute(int[] consumers, int from, int to, long pooled) {
+            List<EndpointState> states = snapshot.endpoints();
+            IntArrays.quickSort(consumers, from, to, (a, b) -> Long.compare(states.get(a).room(), states.get(b).room()));
+
+            for (int i = from; i < to && pooled > 0; i++) {
+                long share = pooled / (to - i);
+                if (share == 0) {
+                    share = pooled;
+                }
+                long inserted = Math.min(share, states.get(consumers[i]).room());
+                insert[consumers[i]] = inserted;
+                pooled -= inserted;
+            }
+            return pooled;
+        }
+
+        @Override
+        public void apply(Level level) {
+            try (Transaction transaction = TransferUtil.getTransaction()) {
+                // The buffer is changed directly below, it has to be put back if an outer transaction is aborted
+                buffer.updateSnapshots(transaction);
+
+                for (int i = 0; i < extract.length; i++) {
+                    if (extract[i] > 0) {
+                        energy += storages.get(i).extract(extract[i], transaction);
+                    }
+                }
+                for (int i = 0; i < insert.length && energy > 0; i++) {
+                    if (insert[i] > 0) {
+                        energy -= storages.get(i).insert(Math.min(insert[i], energy), transaction);
+                    }
+                }
+
+                transaction.commit();
+            }
+
+            saveIfChanged(level);
+        }
+    }
+
+    private class Buffer extends SnapshotParticipant<Long> implements EnergyStorage {
+        @Override
+        public long insert(long maxAmount, TransactionContext transaction) {
+            long inserted = Math.min(maxAmount, getCapacity() - energy);
+            if (inserted <= 0) {
+                return 0;
+            }
+            updateSnapshots(transaction);
+            energy += inserted;
+            return inserted;
+        }
+
+        @Override
+        public long extract(long maxAmount, TransactionContext transaction) {
+            long extracted = Math.min(maxAmount, energy);
+            if (extracted <= 0) {
+                return 0;
+            }
+            updateSnapshots(transaction);
+            energy -= extracted;
+            return extracted;
+        }
+
+        @Override
+        public long getAmount() {
+            return energy;
+        }
+
+        @Override
+        public long getCapacity() {
+            return EnergyNetwork.this.getCapacity();
+        }
+
+        @Override
+        protected Long createSnapshot() {
+            return energy;
+        }
+
+        @Override
+        protected void readSnapshot(Long snapshot) {
+            energy = snapshot;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.energy;
+
+import com.hrznstudio.titanium.api.block_network.NeighbourStorageElement;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import team.reborn.energy.api.EnergyStorage;
+
+import javax.annotation.Nullable;
+
+/**
+ * An element of an {@link EnergyNetwork}, it registers the energy storages around it as endpoints of its network.
+ * Blocks using it should call {@link #refreshEndpoints()} when a neighbour changes.
+ */
+public abstract class EnergyNetworkElement extends NeighbourStorageElement<EnergyNetwork.Endpoint> {
+    public EnergyNetworkElement(Level level, BlockPos pos) {
+        super(level, pos);
+    }
+
+    public void refreshEndpoints() {
+        refreshNeighbourStorages();
+    }
+
+    @Nullable
+    @Override
+    protected EnergyNetwork.Endpoint findNeighbourStorage(ServerLevel serverLevel, BlockPos neighbourPos, Direction direction) {
+        BlockApiCache<EnergyStorage, Direction> cache = findCache(EnergyStorage.SIDED, serverLevel, neighbourPos, direction);
+        return cache == null ? null : new EnergyNetwork.Endpoint(cache, direction.getOpposite());
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("titanium.NetworkMerge")
+@Label("Network Merge")
+@Category({"Titanium", "Block Networks"})
+@Description("Block networks merged into one, the id is the surviving network")
+public class NetworkMergeEvent extends Event {
+    @Label("Network Id")
+    public String networkId;
+
+    @Label("Element Count")
+    public int elementCount;
+
+    @Label("Merged Networks")
+    public int mergedNetworks;
+}
@@ -0,0 +1,26 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("titanium.NetworkScan")
+@Label("Network Scan")
+@Category({"Titanium", "Block Networks"})
+@Description("A full rescan of a block network")
+public class NetworkScanEvent extends Event {
+    @Label("Network Id")
+    public String networkId;
+
+    @Label("Element Count")
+    public int elementCount;
+}
@@ -0,0 +1,214 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.graph;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * The connectivity algorithms of block networks, working on packed positions only. Members are connected when they
+ * share a face. The queue and visited set are reused between calls, so keep an instance around.
+ * <p>
+ * Nothing in here needs a level or a bootstrapped game, so the algorithms can be run and benchmarked on their own.
+ */
+public class NetworkConnectivity {
+    // Face neighbour offsets in the order of Direction.values(), plain ints so the game's enums are never loaded
+    private static final int[] OFFSET_X = {0, 0, 0, 0, -1, 1};
+    private static final int[] OFFSET_Y = {-1, 1, 0, 0, 0, 0};
+    private static final int[] OFFSET_Z = {0, 0, -1, 1, 0, 0};
+    public static final int SIDES = OFFSET_X.length;
+
+    private final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+    private final LongOpenHashSet visited = new LongOpenHashSet();
+
+    /**
+     * Breadth first search from the origin, every reachable member is handed to the consumer once, starting with the
+     * origin itself if it's a member.
+     */
+    public void scan(NetworkWorldAccess world, long origin, LongConsumer found) {
+        queue.clear();
+        visited.clear();
+
+        visited.add(origin);
+        queue.enqueue(origin);
+
+        while (!queue.isEmpty()) {
+            long current = queue.dequeueLong();
+
+            if (!world.isMember(current)) {
+                continue;
+            }
+
+            found.accept(current);
+
+            for (int side = 0; side < SIDES; side++) {
+                long neighbour = neighbour(current, side);
+                if (visited.add(neighbour)) {
+                    queue.enqueue(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one breadth first search per root, interleaved one member at a time. Searches that meet are joined, and we
+     * stop as soon as at most one group of searches can still grow. Every group that ran out of members before meeting
+     * the others is a disconnected piece and gets returned, so the work done is proportional to the smaller pieces
+     * instead of the whole structure. The roots are usually the members that were adjacent to whatever got removed.
+     */
+    public static List<LongArrayList> findDisconnectedComponents(NetworkWorldAccess world, long[] roots) {
+        int searches = roots.length;
+        int[] parents = new int[searches];
+        LongArrayFIFOQueue[] queues = new LongArrayFIFOQueue[searches];
+        LongArrayList[] visited = new LongArrayList[searches];
+        Long2IntOpenHashMap owners = new Long2IntOpenHashMap();
+        owners.defaultReturnValue(-1);
+
+        for (int i = 0; i < searches; i++) {
+            parents[i] = i;
+            queues[i] = new LongArrayFIFOQueue();
+            queues[i].enqueue(roots[i]);
+            visited[i] = LongArrayList.wrap(new long[]{roots[i]});
+            owners.put(roots[i], i);
+        }
+
+        boolean[] counted = new boolean[searches];
+        int groups = searches;
+        while (groups > 1 && countGrowingGroups(parents, queues, counted) > 1) {
+            for (int i = 0; i < searches; i++) {
+                if (queues[i].isEmpty()) {
+                    continue;
+                }
+
+                long current = queues[i].dequeueLong();
+                for (int side = 0; side < SIDES; side++) {
+                    long neighbour = neighbour(current, side);
+                    if (!world.isMember(neighbour)) {
+                        continue;
+                    }
+
+                    int owner = owners.putIfAbsent(neighbour, i);
+                    if (owner == -1) {
+                        queues[i].enqueue(neighbour);
+                        visited[i].add(neighbour);
+                    } else {
+                        int ownerGroup = findGroup(parents, owner);
+                        int currentGroup = findGroup(parents, i);
+                        if (ownerGroup != currentGroup) {
+                            parents[ownerGroup] = currentGroup;
+                            groups--;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (groups == 1) {
+            return Collections.emptyList();
+        }
+
+        // Collect the members of every group. The group that can still grow is the biggest piece and stays where it
+        // is; if every group was exhausted we keep the biggest one.
+        Int2ObjectOpenHashMap<LongArrayList> members = new Int2ObjectOpenHashMap<>();
+        int survivor = -1;
+        for (int i = 0; i < searches; i++) {
+            int group = findGroup(parents, i);
+            members.computeIfAbsent(group, g -> new LongArrayList()).addAll(visited[i]);
+            if (!queues[i].isEmpty()) {
+                survivor = group;
+            }
+        }
+        if (survivor == -1) {
+            int biggest = -1;
+            for (Int2ObjectOpenHashMap.Entry<LongArrayList> entry : members.int2ObjectEntrySet()) {
+                if (entry.getValue().size() > biggest) {
+                    biggest = entry.getValue().size();
+                    survivor = entry.getIntKey();
+                }
+            }
+        }
+        members.remove(survivor);
+
+        return new ArrayList<>(members.values());
+    }
+
+    /**
+     * Adds the groups of the members next to the given position to the list, every group once and skipping the ones
+     * already in it. A group is whatever a member belongs to, like its network.
+     *
+     * @param groupAt Gets the group of the member at a packed position, or null if there is no member or it has none
+     */
+    public static <G> void collectAdjacentGroups(long pos, LongFunction<G> groupAt, List<G> groups) {
+        for (int side = 0; side < SIDES; side++) {
+            G group = groupAt.apply(neighbour(pos, side));
+            if (group != null && !groups.contains(group)) {
+                groups.add(group);
+            }
+        }
+    }
+
+    /**
+     * Union by size: takes the biggest group out of the list and returns it, the groups left in the list are the ones
+     * to merge into it. Merging then only moves the members of the smaller groups, so joining two groups costs the size
+     * of the smaller side instead of a rescan of the result.
+     *
+     * @return The group that survives the merge, or null if the list is empty
+     */
+    public static <G> G takeBiggestGroup(List<G> groups, ToIntFunction<G> sizeOf) {
+        int biggest = -1;
+        for (int i = 0; i < groups.size(); i++) {
+            if (biggest == -1 || sizeOf.applyAsInt(groups.get(i)) > sizeOf.applyAsInt(groups.get(biggest))) {
+                biggest = i;
+            }
+        }
+        return biggest == -1 ? null : groups.remove(biggest);
+    }
+
+    /**
+     * Gets the packed position next to the given one on a side, sides go from 0 to {@link #SIDES} in the order of
+     * Direction.values().
+     */
+    public static long neighbour(long pos, int side) {
+        return BlockPos.offset(pos, OFFSET_X[side], OFFSET_Y[side], OFFSET_Z[side]);
+    }
+
+    private static int countGrowingGroups(int[] parents, LongArrayFIFOQueue[] queues, boolean[] counted) {
+        Arrays.fill(counted, false);
+        int growing = 0;
+        for (int i = 0; i < parents.length; i++) {
+            if (queues[i].isEmpty()) {
+                continue;
+            }
+            int group = findGroup(parents, i);
+            if (!counted[group]) {
+                counted[group] = true;
+                growing++;
+            }
+        }
+        return growing;
+    }
+
+    private static int findGroup(int[] parents, int search) {
+        while (parents[search] != search) {
+            search = parents[search];
+        }
+        return search;
+    }
+}
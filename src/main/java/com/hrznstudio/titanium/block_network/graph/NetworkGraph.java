@@ -10,38 +10,231 @@ package com.hrznstudio.titanium.block_network.graph;
 
 import com.hrznstudio.titanium.api.block_network.NetworkElement;
 import com.hrznstudio.titanium.block_network.Network;
+import com.hrznstudio.titanium.block_network.NetworkManager;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
 
-import java.util.HashSet;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 public class NetworkGraph {
     private final Network network;
 
-    private Set<NetworkElement> elements = new HashSet<>();
-
+    private Long2ObjectOpenHashMap<NetworkElement> elements = new Long2ObjectOpenHashMap<>();
+    // Elements that get updated every tick, the others sleep until woken or until their wake up tick
+    private final Set<NetworkElement> activeElements = new ObjectLinkedOpenHashSet<>();
+    private final Object2LongOpenHashMap<NetworkElement> sleepingUntil = new Object2LongOpenHashMap<>();
+    private final PriorityQueue<ScheduledWakeUp> wakeUps = new PriorityQueue<>(Comparator.comparingLong(ScheduledWakeUp::tick));
+    private final List<NetworkElement> updating = new ArrayList<>();
 
     public NetworkGraph(Network network) {
         this.network = network;
     }
 
     public NetworkGraphScannerResult scan(Level originLevel, BlockPos originPos) {
-        NetworkGraphScanner scanner = new NetworkGraphScanner(elements, network.getType());
+        NetworkGraphScanner scanner = NetworkManager.get(originLevel).getScanner();
+
+        NetworkGraphScannerResult result = scanner.scanAt(originLevel, originPos, elements, network.getType());
+
+        this.elements = result.getFoundElementsByPos();
+
+        result.getNewElements().forEach(p -> {
+            // An element found here may still be listed by another network, it can't stay a member of both
+            Network previous = p.getNetwork();
+            if (previous != null && previous != network && previous.getGraph().release(p)) {
+                result.addPreviousNetwork(previous);
+            }
+            activeElements.add(p);
+            p.joinNetwork(network);
+        });
+        result.getRemovedElements().forEach(p -> {
+            forget(p);
+            p.leaveNetwork();
+        });
+
+        if (!result.getNewElements().isEmpty() || !result.getRemovedElements().isEmpty()) {
+            network.onElementsChanged();
+        }
 
-        NetworkGraphScannerResult result = scanner.scanAt(originLevel, originPos);
+        return result;
+    }
 
-        this.elements = result.getFoundElements();
+    public void addElement(NetworkElement element) {
+        if (elements.putIfAbsent(element.getPos().asLong(), element) == null) {
+            activeElements.add(element);
+            element.joinNetwork(network);
+            network.onElementsChanged();
+        }
+    }
 
-        result.getNewElements().forEach(p -> p.joinNetwork(network));
-        result.getRemovedElements().forEach(NetworkElement::leaveNetwork);
+    public void removeElement(NetworkElement element) {
+        if (elements.remove(element.getPos().asLong(), element)) {
+            forget(element);
+            element.leaveNetwork();
+            network.onElementsChanged();
+        }
+    }
 
+    /**
+     * Drops an element whose chunk unloaded. It stays a member of this network in storage, so nothing gets notified.
+     */
+    public void unloadElement(NetworkElement element) {
+        if (elements.remove(element.getPos().asLong(), element)) {
+            forget(element);
+            network.onElementsChanged();
+        }
+    }
 
-        return result;
+    /**
+     * Drops an element that another network took over, without it leaving its network since it already joined another.
+     *
+     * @return whether the element was a member of this graph
+     */
+    public boolean release(NetworkElement element) {
+        if (elements.remove(element.getPos().asLong(), element)) {
+            forget(element);
+            network.onElementsChanged();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves every element of the other graph into this one, leaving the other graph empty.
+     * Costs O(size of the other graph), so callers should always absorb the smaller graph into the bigger one.
+     */
+    public void absorb(NetworkGraph other) {
+        for (Long2ObjectMap.Entry<NetworkElement> entry : other.elements.long2ObjectEntrySet()) {
+            if (elements.putIfAbsent(entry.getLongKey(), entry.getValue()) == null) {
+                activeElements.add(entry.getValue());
+                entry.getValue().joinNetwork(network);
+            }
+        }
+        other.elements = new Long2ObjectOpenHashMap<>();
+        other.activeElements.clear();
+        other.sleepingUntil.clear();
+        other.wakeUps.clear();
+        network.onElementsChanged();
+        other.network.onElementsChanged();
+    }
+
+    /**
+     * Hands the given elements over to another graph without them ever being networkless in between.
+     */
+    public void moveElementsTo(NetworkGraph other, Collection<NetworkElement> moved) {
+        for (NetworkElement element : moved) {
+            long pos = element.getPos().asLong();
+            if (elements.remove(pos, element)) {
+                forget(element);
+                other.elements.put(pos, element);
+                other.activeElements.add(element);
+                element.joinNetwork(other.network);
+            }
+        }
+        network.onElementsChanged();
+        other.network.onElementsChanged();
+    }
+
+    /**
+     * Updates the awake elements, after waking the ones whose wake up tick has come.
+     */
+    public void updateElements(long gameTime) {
+        while (!wakeUps.isEmpty() && wakeUps.peek().tick() <= gameTime) {
+            ScheduledWakeUp wakeUp = wakeUps.poll();
+            // Skip wake ups that were replaced by another sleep or a manual wake up in the meantime.
+            if (sleepingUntil.containsKey(wakeUp.element()) && sleepingUntil.getLong(wakeUp.element()) == wakeUp.tick()) {
+                wake(wakeUp.element());
+            }
+        }
+
+        if (activeElements.isEmpty()) {
+            return;
+        }
+
+        // Elements can fall asleep or wake others while updating, iterate over a copy.
+        updating.addAll(activeElements);
+        for (NetworkElement element : updating) {
+            if (activeElements.contains(element)) {
+                element.update();
+            }
+        }
+        updating.clear();
+    }
+
+    /**
+     * Stops updating the element until it's woken, or until the given game tick. Use {@link Long#MAX_VALUE} to sleep
+     * until woken.
+     */
+    public void sleep(NetworkElement element, long wakeTick) {
+        if (elements.get(element.getPos().asLong()) != element) {
+            return;
+        }
+
+        activeElements.remove(element);
+        sleepingUntil.put(element, wakeTick);
+
+        if (wakeTick != Long.MAX_VALUE) {
+            wakeUps.add(new ScheduledWakeUp(wakeTick, element));
+        }
+    }
+
+    public void wake(NetworkElement element) {
+        if (sleepingUntil.containsKey(element)) {
+            sleepingUntil.removeLong(element);
+            activeElements.add(element);
+        }
+    }
+
+    public void wakeAll() {
+        activeElements.addAll(sleepingUntil.keySet());
+        sleepingUntil.clear();
+        wakeUps.clear();
+    }
+
+    public boolean isSleeping(NetworkElement element) {
+        return sleepingUntil.containsKey(element);
+    }
+
+    public int getActiveCount() {
+        return activeElements.size();
+    }
+
+    private void forget(NetworkElement element) {
+        activeElements.remove(element);
+        sleepingUntil.removeLong(element);
+    }
+
+    @Nullable
+    public NetworkElement getElement(long pos) {
+        return elements.get(pos);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    public Collection<NetworkElement> getElements() {
+        return elements.values();
+    }
+
+    /**
+     * A copy of the packed positions of every loaded element, later changes to the graph don't show up in it.
+     */
+    public LongOpenHashSet copyPositions() {
+        return new LongOpenHashSet(elements.keySet());
     }
 
-    public Set<NetworkElement> getElements() {
-        return elements;
+    private record ScheduledWakeUp(long tick, NetworkElement element) {
     }
 
 
@@ -9,77 +9,139 @@ package com.hrznstudio.titanium.block_network.graph;
 
 import com.hrznstudio.titanium.api.block_network.NetworkElement;
 import com.hrznstudio.titanium.block_network.NetworkManager;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.Level;
 
 import java.util.*;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 
 public class NetworkGraphScanner {
-    private final Set<NetworkElement> foundElements = new HashSet<>();
-    private final Set<NetworkElement> newElements = new HashSet<>();
-    private final Set<NetworkElement> removedElements = new HashSet<>();
+    private static final Direction[] DIRECTIONS = Direction.values();
 
-    private final Set<NetworkElement> currentElements;
-    private final ResourceLocation requiredNetworkType;
+    private final NetworkConnectivity connectivity = new NetworkConnectivity();
 
-    private final List<NetworkGraphScannerRequest> allRequests = new ArrayList<>();
-    private final Queue<NetworkGraphScannerRequest> requests = new ArrayDeque<>();
+    private Long2ObjectMap<NetworkElement> currentElements;
+    private ResourceLocation requiredNetworkType;
 
-    public NetworkGraphScanner(Set<NetworkElement> currentElements, ResourceLocation requiredNetworkType) {
+    /**
+     * Creates a scanner meant to be kept around, its search state is reused by every
+     * {@link #scanAt(Level, BlockPos, Long2ObjectMap, ResourceLocation)} call.
+     */
+    public NetworkGraphScanner() {
+    }
+
+    public NetworkGraphScanner(Long2ObjectMap<NetworkElement> currentElements, ResourceLocation requiredNetworkType) {
         this.currentElements = currentElements;
-        this.removedElements.addAll(currentElements);
         this.requiredNetworkType = requiredNetworkType;
     }
 
+    /**
+     * @deprecated Elements are looked up by packed position now, use
+     * {@link #NetworkGraphScanner(Long2ObjectMap, ResourceLocation)} or the reusable {@link #NetworkGraphScanner()}
+     */
+    @Deprecated
+    public NetworkGraphScanner(Set<NetworkElement> currentElements, ResourceLocation requiredNetworkType) {
+        this(byPos(currentElements), requiredNetworkType);
+    }
+
+    static Long2ObjectOpenHashMap<NetworkElement> byPos(Collection<NetworkElement> elements) {
+        Long2ObjectOpenHashMap<NetworkElement> byPos = new Long2ObjectOpenHashMap<>(elements.size());
+        for (NetworkElement element : elements) {
+            byPos.put(element.getPos().asLong(), element);
+        }
+        return byPos;
+    }
+
     public NetworkGraphScannerResult scanAt(Level level, BlockPos pos) {
-        addRequest(new NetworkGraphScannerRequest(level, pos, null, null));
+        return scanAt(level, pos, currentElements, requiredNetworkType);
+    }
 
-        NetworkGraphScannerRequest request;
-        while ((request = requests.poll()) != null) {
-            singleScanAt(request);
+    public NetworkGraphScannerResult scanAt(Level level, BlockPos pos, Long2ObjectMap<NetworkElement> currentElements, ResourceLocation requiredNetworkType) {
+        NetworkManager manager = NetworkManager.get(level);
+        return scan(manager::getElement, pos.asLong(), currentElements, requiredNetworkType, () -> traceRequests(level, pos, requiredNetworkType));
+    }
+
+    /**
+     * Scans without a level, looking the elements up through the given function. Results of these scans have no
+     * requests to trace.
+     *
+     * @param elementAt Gets the element at a packed position, or null if there is none
+     */
+    public NetworkGraphScannerResult scanAt(LongFunction<NetworkElement> elementAt, long pos, Long2ObjectMap<NetworkElement> currentElements, ResourceLocation requiredNetworkType) {
+        return scan(elementAt, pos, currentElements, requiredNetworkType, Collections::emptyList);
+    }
+
+    private NetworkGraphScannerResult scan(LongFunction<NetworkElement> elementAt, long pos, Long2ObjectMap<NetworkElement> currentElements, ResourceLocation requiredNetworkType, Supplier<List<NetworkGraphScannerRequest>> requests) {
+        Long2ObjectOpenHashMap<NetworkElement> foundElements = new Long2ObjectOpenHashMap<>(currentElements.size());
+        List<NetworkElement> newElements = new ArrayList<>();
+
+        connectivity.scan(current -> {
+            NetworkElement pipe = elementAt.apply(current);
+            return pipe != null && requiredNetworkType.equals(pipe.getNetworkType());
+        }, pos, current -> {
+            NetworkElement pipe = elementAt.apply(current);
+
+            foundElements.put(current, pipe);
+
+            if (!pipe.equals(currentElements.get(current))) {
+                newElements.add(pipe);
+            }
+        });
+
+        List<NetworkElement> removedElements = new ArrayList<>();
+        for (Long2ObjectMap.Entry<NetworkElement> entry : currentElements.long2ObjectEntrySet()) {
+            if (!entry.getValue().equals(foundElements.get(entry.getLongKey()))) {
+                removedElements.add(entry.getValue());
+            }
         }
 
         return new NetworkGraphScannerResult(
             foundElements,
             newElements,
             removedElements,
-            allRequests
+            requests
         );
     }
 
-    private void singleScanAt(NetworkGraphScannerRequest request) {
-        NetworkElement pipe = NetworkManager.get(request.getLevel()).getElement(request.getPos());
-
-        if (pipe != null) {
-            if (!requiredNetworkType.equals(pipe.getNetworkType())) {
-                return;
-            }
+    /**
+     * Replays a scan recording every neighbour probe and its parent, only used when someone asks for the requests of a result.
+     */
+    private static List<NetworkGraphScannerRequest> traceRequests(Level level, BlockPos pos, ResourceLocation requiredNetworkType) {
+        NetworkManager manager = NetworkManager.get(level);
+        LongOpenHashSet found = new LongOpenHashSet();
+        List<NetworkGraphScannerRequest> allRequests = new ArrayList<>();
+        Queue<NetworkGraphScannerRequest> requests = new ArrayDeque<>();
 
-            if (foundElements.add(pipe)) {
-                if (!currentElements.contains(pipe)) {
-                    newElements.add(pipe);
-                }
+        NetworkGraphScannerRequest origin = new NetworkGraphScannerRequest(level, pos, null, null);
+        allRequests.add(origin);
+        requests.add(origin);
 
-                removedElements.remove(pipe);
+        NetworkGraphScannerRequest request;
+        while ((request = requests.poll()) != null) {
+            NetworkElement pipe = manager.getElement(request.getPos());
 
+            if (pipe != null && requiredNetworkType.equals(pipe.getNetworkType()) && found.add(request.getPos().asLong())) {
                 request.setSuccessful(true);
 
-                for (Direction dir : Direction.values()) {
-                    addRequest(new NetworkGraphScannerRequest(
+                for (Direction dir : DIRECTIONS) {
+                    NetworkGraphScannerRequest child = new NetworkGraphScannerRequest(
                         request.getLevel(),
                         request.getPos().relative(dir),
                         dir,
                         request
-                    ));
+                    );
+                    allRequests.add(child);
+                    requests.add(child);
                 }
             }
         }
-    }
 
-    private void addRequest(NetworkGraphScannerRequest request) {
-        requests.add(request);
-        allRequests.add(request);
+        return allRequests;
     }
 }
@@ -9,37 +9,80 @@ package com.hrznstudio.titanium.block_network.graph;
 
 
 import com.hrznstudio.titanium.api.block_network.NetworkElement;
+import com.hrznstudio.titanium.block_network.Network;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class NetworkGraphScannerResult {
-    private final Set<NetworkElement> foundElements;
-    private final Set<NetworkElement> newElements;
-    private final Set<NetworkElement> removedElements;
+    private final Long2ObjectOpenHashMap<NetworkElement> foundElements;
+    private final Collection<NetworkElement> newElements;
+    private final Collection<NetworkElement> removedElements;
 
-    private final List<NetworkGraphScannerRequest> requests;
+    private final Set<Network> previousNetworks = new HashSet<>();
 
+    private final Supplier<List<NetworkGraphScannerRequest>> requestTracer;
+    private List<NetworkGraphScannerRequest> requests;
+
+    public NetworkGraphScannerResult(Long2ObjectOpenHashMap<NetworkElement> foundElements, Collection<NetworkElement> newElemenets, Collection<NetworkElement> removedElements, List<NetworkGraphScannerRequest> requests) {
+        this(foundElements, newElemenets, removedElements, () -> requests);
+    }
+
+    /**
+     * @deprecated Found elements are kept by packed position now, use
+     * {@link #NetworkGraphScannerResult(Long2ObjectOpenHashMap, Collection, Collection, List)}
+     */
+    @Deprecated
     public NetworkGraphScannerResult(Set<NetworkElement> foundElements, Set<NetworkElement> newElemenets, Set<NetworkElement> removedElements, List<NetworkGraphScannerRequest> requests) {
+        this(NetworkGraphScanner.byPos(foundElements), newElemenets, removedElements, () -> requests);
+    }
+
+    public NetworkGraphScannerResult(Long2ObjectOpenHashMap<NetworkElement> foundElements, Collection<NetworkElement> newElemenets, Collection<NetworkElement> removedElements, Supplier<List<NetworkGraphScannerRequest>> requestTracer) {
         this.foundElements = foundElements;
         this.newElements = newElemenets;
         this.removedElements = removedElements;
-        this.requests = requests;
+        this.requestTracer = requestTracer;
     }
 
-    public Set<NetworkElement> getFoundElements() {
+    public Collection<NetworkElement> getFoundElements() {
+        return foundElements.values();
+    }
+
+    public Long2ObjectOpenHashMap<NetworkElement> getFoundElementsByPos() {
         return foundElements;
     }
 
-    public Set<NetworkElement> getNewElements() {
+    public Collection<NetworkElement> getNewElements() {
         return newElements;
     }
 
-    public Set<NetworkElement> getRemovedElements() {
+    public Collection<NetworkElement> getRemovedElements() {
         return removedElements;
     }
 
+    /**
+     * Other networks that had some of the new elements as members, the scan took those elements over.
+     */
+    public Set<Network> getPreviousNetworks() {
+        return previousNetworks;
+    }
+
+    void addPreviousNetwork(Network network) {
+        previousNetworks.add(network);
+    }
+
+    /**
+     * Scans don't record their requests, the first call traces the scan again against the current state of the world.
+     * Call it before the network changes if the trace has to match the result.
+     */
     public List<NetworkGraphScannerRequest> getRequests() {
+        if (requests == null) {
+            requests = requestTracer.get();
+        }
         return requests;
     }
 }
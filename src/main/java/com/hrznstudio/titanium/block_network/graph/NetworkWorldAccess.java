@@ -0,0 +1,20 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.graph;
+
+/**
+ * The only thing {@link NetworkConnectivity} needs to know about the world, so the connectivity algorithms can run
+ * against a level, a single network graph or a synthetic grid without a game instance.
+ */
+@FunctionalInterface
+public interface NetworkWorldAccess {
+    /**
+     * Whether the given packed position holds an element of the structure being searched.
+     */
+    boolean isMember(long pos);
+}
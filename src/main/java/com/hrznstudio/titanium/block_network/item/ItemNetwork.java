@@ -0,0 +1,312 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.item;
+
+import com.hrznstudio.titanium.block_network.NeighbourStorageNetwork;
+import com.hrznstudio.titanium.block_network.NeighbourStorages;
+import com.hrznstudio.titanium.block_network.Network;
+import com.hrznstudio.titanium.block_network.NetworkFactory;
+import com.hrznstudio.titanium.block_network.NetworkSnapshot;
+import com.hrznstudio.titanium.block_network.ParallelNetworkTick;
+import com.hrznstudio.titanium.block_network.graph.NetworkWorldAccess;
+import io.github.fabricators_of_create.porting_lib.transfer.TransferUtil;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+/**
+ * A network that knows where items can go. Elements register the inventories next to them as destinations, and every
+ * source position gets a table of all reachable destinations with their shortest path, sorted by priority and distance.
+ * <p>
+ * Tables are built on first use and kept until the topology version changes, which happens on merges, splits and any
+ * element or destination change. Picking a route is then a walk over the table instead of a search through the network.
+ * After a change the tables of every source that asked for routes before are rebuilt off the server thread during the
+ * network tick, against a {@link NetworkSnapshot} of the topology.
+ */
+public class ItemNetwork extends Network implements NeighbourStorageNetwork<ItemNetwork.Destination> {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Comparator<Route> ROUTE_ORDER = Comparator
+        .comparingInt((Route route) -> -route.destination().priority())
+        .thenComparingInt(Route::distance);
+
+    private final ResourceLocation type;
+    // Destinations by the position of the element that is touching them
+    private final NeighbourStorages<Destination> destinations = new NeighbourStorages<>(this::invalidateRoutes);
+    private final Long2ObjectOpenHashMap<RoutingTable> routingTables = new Long2ObjectOpenHashMap<>();
+    // Every source that asked for routes, their tables get rebuilt in the background after a topology change
+    private final LongOpenHashSet routedSources = new LongOpenHashSet();
+    private int topologyVersion;
+    // The topology version the tables of the routed sources were last rebuilt for
+    private int rebuiltVersion;
+
+    public ItemNetwork(BlockPos originPos, String id, ResourceLocation type) {
+        super(originPos, id);
+        this.type = type;
+    }
+
+    /**
+     * Creates a factory to register in the {@link com.hrznstudio.titanium.block_network.NetworkRegistry} for an item
+     * network type.
+     */
+    public static NetworkFactory factory(ResourceLocation type) {
+        return new NetworkFactory() {
+            @Override
+            public Network create(BlockPos pos) {
+                return new ItemNetwork(pos, NetworkFactory.randomString(new Random(), 8), type);
+            }
+
+            @Override
+            public Network create(CompoundTag tag) {
+                return new ItemNetwork(BlockPos.of(tag.getLong("origin")), tag.getString("id"), type);
+            }
+        };
+    }
+
+    public int getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    /**
+     * Drops every cached route, they get rebuilt the next time they're asked for.
+     */
+    public void invalidateRoutes() {
+        topologyVersion++;
+        routingTables.clear();
+    }
+
+    @Override
+    public NeighbourStorages<Destination> getNeighbourStorages() {
+        return destinations;
+    }
+
+    /**
+     * Every destination reachable from the given element, highest priority first and closest first within a priority.
+     */
+    public List<Route> getRoutes(BlockPos source) {
+        long sourcePos = source.asLong();
+
+        RoutingTable table = routingTables.get(sourcePos);
+        if (table == null || table.version() != topologyVersion) {
+            table = new RoutingTable(topologyVersion, buildRoutes(sourcePos, pos -> graph.getElement(pos) != null, destinations::get));
+            routingTables.put(sourcePos, table);
+            routedSources.add(sourcePos);
+        }
+
+        return table.routes();
+    }
+
+    /**
+     * Finds the first route from the given element whose inventory accepts some of the resource.
+     *
+     * @param source  the element the items enter the network at
+     * @param exclude an inventory that may not be picked, usually the one the items were taken from
+     */
+    @Nullable
+    public Route findRoute(BlockPos source, @Nullable BlockPos exclude, ItemVariant resource, long amount) {
+        List<Route> routes = getRoutes(source);
+
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            if (route.destination().pos().equals(exclude)) {
+                continue;
+            }
+
+            Storage<ItemVariant> storage = route.destination().find();
+            if (storage == null || !storage.supportsInsertion()) {
+                continue;
+            }
+
+            try (Transaction transaction = TransferUtil.getTransaction()) {
+                if (storage.insert(resource, amount, transaction) > 0) {
+                    return route;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public ParallelNetworkTick prepareParallelTick(Level level) {
+        if (rebuiltVersion == topologyVersion) {
+            return null;
+        }
+        rebuiltVersion = topologyVersion;
+
+        for (LongIterator iterator = routedSources.iterator(); iterator.hasNext(); ) {
+            if (graph.getElement(iterator.nextLong()) == null) {
+                iterator.remove();
+            }
+        }
+        if (routedSources.isEmpty()) {
+            return null;
+        }
+
+        return new RouteRebuild(topologyVersion, routedSources.toLongArray(), NetworkSnapshot.capture(graph, destinations));
+    }
+
+    private static List<Route> buildRoutes(long sourcePos, NetworkWorldAccess members, LongFunction<List<Destination>> destinationsAt) {
+        List<Route> routes = new ArrayList<>();
+        if (!members.isMember(sourcePos)) {
+            return routes;
+        }
+
+        Long2LongOpenHashMap parents = new Long2LongOpenHashMap();
+        Long2IntOpenHashMap distances = new Long2IntOpenHashMap();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+
+        parents.put(sourcePos, sourcePos);
+        distances.put(sourcePos, 0);
+        queue.enqueue(sourcePos);
+
+        while (!queue.isEmpty()) {
+            long current = queue.dequeueLong();
+            int distance = distances.get(current);
+
+            List<Destination> elementDestinations = destinationsAt.apply(current);
+            if (elementDestinations != null) {
+                long[] path = tracePath(parents, sourcePos, current, distance);
+                for (Destination destination : elementDestinations) {
+                    routes.add(new Route(destination, distance, path));
+                }
+            }
+
+            for (Direction direction : DIRECTIONS) {
+                long neighbour = BlockPos.offset(current, direction);
+                if (!parents.containsKey(neighbour) && members.isMember(neighbour)) {
+                    parents.put(neighbour, current);
+                    distances.put(neighbour, distance + 1);
+                    queue.enqueue(neighbour);
+                }
+            }
+        }
+
+        routes.sort(ROUTE_ORDER);
+
+        return List.copyOf(routes);
+    }
+
+    private static long[] tracePath(Long2LongOpenHashMap parents, long sourcePos, long targetPos, int distance) {
+        long[] path = new long[distance + 1];
+        long current = targetPos;
+        for (int i = distance; i > 0; i--) {
+            path[i] = current;
+            current = parents.get(current);
+        }
+        path[0] = sourcePos;
+        return path;
+    }
+
+    @Override
+    public void onElementsChanged() {
+        invalidateRoutes();
+    }
+
+    @Override
+    public void onMergedWith(Network mainNetwork) {
+        invalidateRoutes();
+        if (mainNetwork instanceof ItemNetwork itemNetwork) {
+            itemNetwork.invalidateRoutes();
+        }
+    }
+
+    @Override
+    public void onSplit(Collection<Network> splitNetworks) {
+        invalidateRoutes();
+        for (Network splitNetwork : splitNetworks) {
+            if (splitNetwork instanceof ItemNetwork itemNetwork) {
+                itemNetwork.invalidateRoutes();
+            }
+        }
+    }
+
+    @Override
+    public ResourceLocation getType() {
+        return type;
+    }
+
+    /**
+     * An inventory next to an element, looked up through a cache so checking it for every item stays cheap.
+     *
+     * @param elementPos the packed position of the element touching the inventory
+     * @param pos        the position of the inventory
+     * @param side       the side of the inventory facing the element
+     */
+    public record Destination(long elementPos, BlockPos pos, Direction side, int priority,
+                              BlockApiCache<Storage<ItemVariant>, Direction> cache) {
+        @Nullable
+        public Storage<ItemVariant> find() {
+            return cache.find(side);
+        }
+    }
+
+    /**
+     * @param path packed element positions from the source element to the element touching the destination, both included
+     */
+    public record Route(Destination destination, int distance, long[] path) {
+    }
+
+    private record RoutingTable(int version, List<Route> routes) {
+    }
+
+    /**
+     * Rebuilds the tables of the given sources from a snapshot, they're only installed if the topology didn't change in
+     * the meantime.
+     */
+    private class RouteRebuild implements ParallelNetworkTick {
+        private final int version;
+        private final long[] sources;
+        private final NetworkSnapshot<Destination> snapshot;
+        private final List<RoutingTable> tables;
+
+        private RouteRebuild(int version, long[] sources, NetworkSnapshot<Destination> snapshot) {
+            this.version = version;
+            this.sources = sources;
+            this.snapshot = snapshot;
+            this.tables = new ArrayList<>(sources.length);
+        }
+
+        @Override
+        public void compute() {
+            for (long source : sources) {
+                tables.add(new RoutingTable(version, buildRoutes(source, snapshot, snapshot::getStorages)));
+            }
+        }
+
+        @Override
+        public void apply(Level level) {
+            if (version != topologyVersion) {
+                return;
+            }
+            for (int i = 0; i < sources.length; i++) {
+                routingTables.put(sources[i], tables.get(i));
+            }
+        }
+    }
+}
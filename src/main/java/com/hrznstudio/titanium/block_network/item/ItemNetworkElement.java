@@ -0,0 +1,60 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.block_network.item;
+
+import com.hrznstudio.titanium.api.block_network.NeighbourStorageElement;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+
+/**
+ * An element of an {@link ItemNetwork}, it registers the inventories around it as destinations of its network.
+ * Blocks using it should call {@link #refreshDestinations()} when a neighbour changes.
+ */
+public abstract class ItemNetworkElement extends NeighbourStorageElement<ItemNetwork.Destination> {
+    public ItemNetworkElement(Level level, BlockPos pos) {
+        super(level, pos);
+    }
+
+    /**
+     * Whether items may be routed into the inventory on the given side of this element.
+     */
+    public boolean canInsertInto(Direction direction) {
+        return true;
+    }
+
+    /**
+     * Destinations with a higher priority are picked before closer ones with a lower priority.
+     */
+    public int getPriority(Direction direction) {
+        return 0;
+    }
+
+    public void refreshDestinations() {
+        refreshNeighbourStorages();
+    }
+
+    @Override
+    protected boolean connectsTo(Direction direction) {
+        return canInsertInto(direction);
+    }
+
+    @Nullable
+    @Override
+    protected ItemNetwork.Destination findNeighbourStorage(ServerLevel serverLevel, BlockPos neighbourPos, Direction direction) {
+        BlockApiCache<Storage<ItemVariant>, Direction> cache = findCache(ItemStorage.SIDED, serverLevel, neighbourPos, direction);
+        return cache == null ? null : new ItemNetwork.Destination(pos.asLong(), neighbourPos, direction.getOpposite(), getPriority(direction), cache);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.command;
+
+import com.hrznstudio.titanium.block_network.Network;
+import com.hrznstudio.titanium.block_network.NetworkManager;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Lists the biggest block networks of every dimension, to find out which networks are behind merge or split lag.
+ */
+public class NetworkCommand {
+    private static final int DEFAULT_LIMIT = 10;
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("titanium")
+                .requires(source -> source.hasPermission(2))
+                .then(Commands.literal("networks")
+                        .executes(context -> execute(context, DEFAULT_LIMIT))
+                        .then(Commands.argument("limit", IntegerArgumentType.integer(1))
+                                .executes(context -> execute(context, IntegerArgumentType.getInteger(context, "limit"))))));
+    }
+
+    private static int execute(CommandContext<CommandSourceStack> context, int limit) {
+        CommandSourceStack source = context.getSource();
+        int listed = 0;
+
+        for (ServerLevel level : source.getServer().getAllLevels()) {
+            NetworkManager manager = NetworkManager.get(level);
+            if (manager.getNetworks().isEmpty()) {
+                continue;
+            }
+
+            List<Network> networks = new ArrayList<>(manager.getNetworks());
+            networks.sort(Comparator.comparingInt((Network network) -> network.getElementCount() + manager.getStoredElementCount(network.getId())).reversed());
+
+            source.sendSuccess(Component.literal(level.dimension().location() + ": " + networks.size() + " networks"), false);
+
+            long gameTime = level.getGameTime();
+            for (Network network : networks.subList(0, Math.min(limit, networks.size()))) {
+                String lastScan = network.getLastScanTime() < 0 ? "never" : (gameTime - network.getLastScanTime()) + " ticks ago";
+                source.sendSuccess(Component.literal(" " + network.getId() + " [" + network.getType() + "]"
+                        + " elements: " + network.getElementCount()
+                        + " (" + manager.getStoredElementCount(network.getId()) + " unloaded)"
+                        + ", last scan: " + lastScan
+                        + ", merges: " + network.getMergeCount()
+                        + ", splits: " + network.getSplitCount()), false);
+                listed++;
+            }
+        }
+
+        if (listed == 0) {
+            source.sendSuccess(Component.literal("No block networks"), false);
+        }
+
+        return listed;
+    }
+}
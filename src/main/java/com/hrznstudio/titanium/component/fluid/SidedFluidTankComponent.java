@@ -16,10 +16,12 @@ import com.hrznstudio.titanium.block.tile.ActiveTile;
 import com.hrznstudio.titanium.client.screen.addon.FacingHandlerScreenAddon;
 import com.hrznstudio.titanium.component.IComponentHarness;
 import com.hrznstudio.titanium.component.sideness.IFacingComponent;
+import com.hrznstudio.titanium.component.sideness.NeighbourApiCache;
 import com.hrznstudio.titanium.component.sideness.SidedComponentManager;
 import com.hrznstudio.titanium.util.FacingUtil;
 import io.github.fabricators_of_create.porting_lib.transfer.TransferUtil;
 import io.github.fabricators_of_create.porting_lib.transfer.fluid.FluidTank;
+import net.fabricmc.fabric.api.transfer.v1.fluid.FluidStorage;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
@@ -29,7 +31,6 @@ import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.item.DyeColor;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.entity.BlockEntity;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 
@@ -46,6 +47,7 @@ public class SidedFluidTankComponent<T extends IComponentHarness> extends FluidT
     private int pos;
     private boolean hasFacingAddon;
     private FaceMode[] validFaceModes;
+    private final NeighbourApiCache<Storage<FluidVariant>> neighbours = new NeighbourApiCache<>(FluidStorage.SIDED);
 
     public SidedFluidTankComponent(String name, long amount, int posX, int posY, int pos) {
         super(name, amount, posX, posY);
@@ -105,28 +107,18 @@ public class SidedFluidTankComponent<T extends IComponentHarness> extends FluidT
         for (FacingUtil.Sideness sideness : facingModes.keySet()) {
             if (facingModes.get(sideness).equals(FaceMode.PUSH)) {
                 Direction real = FacingUtil.getFacingFromSide(blockFacing, sideness);
-                BlockEntity entity = world.getBlockEntity(pos.relative(real));
-                if (entity != null) {
-//                    boolean hasWorked = entity.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, real.getOpposite()) TODO: PORT
-//                            .map(iFluidHandler -> transfer(this, iFluidHandler, workAmount))
-//                            .orElse(false);
-//                    if (hasWorked) {
-//                        return true;
-//                    }
+                Storage<FluidVariant> storage = neighbours.find(world, pos, real);
+                if (storage != null && transfer(this, storage, workAmount)) {
+                    return true;
                 }
             }
         }
         for (FacingUtil.Sideness sideness : facingModes.keySet()) {
             if (facingModes.get(sideness).equals(FaceMode.PULL)) {
                 Direction real = FacingUtil.getFacingFromSide(blockFacing, sideness);
-                BlockEntity entity = world.getBlockEntity(pos.relative(real));
-                if (entity != null) {
-//                    boolean hasWorked = entity.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, real.getOpposite()) TODO: PORT
-//                            .map(iFluidHandler -> transfer(iFluidHandler, this, workAmount))
-//                            .orElse(false);
-//                    if (hasWorked) {
-//                        return true;
-//                    }
+                Storage<FluidVariant> storage = neighbours.find(world, pos, real);
+                if (storage != null && transfer(storage, this, workAmount)) {
+                    return true;
                 }
             }
         }
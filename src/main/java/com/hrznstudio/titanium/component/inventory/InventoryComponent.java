@@ -18,9 +18,10 @@ import com.hrznstudio.titanium.container.addon.IContainerAddonProvider;
 import com.hrznstudio.titanium.container.addon.SlotContainerAddon;
 import io.github.fabricators_of_create.porting_lib.transfer.item.ItemHandlerHelper;
 import io.github.fabricators_of_create.porting_lib.transfer.item.ItemStackHandler;
-import io.github.fabricators_of_create.porting_lib.util.ItemStackUtil;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.item.DyeColor;
 import net.minecraft.world.item.ItemStack;
 import net.fabricmc.api.EnvType;
@@ -30,6 +31,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import javax.annotation.Nonnull;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +60,13 @@ public class InventoryComponent<T extends IComponentHarness> extends ItemStackHa
     private int slotLimit;
     private Function<Integer, Pair<Integer, Integer>> slotPosition;
     private Predicate<Integer> slotVisiblePredicate;
+    private InventoryItemIndex itemIndex;
+    private final BitSet escapedSlots = new BitSet();
+    // Handed to the input filter by isItemValid, so probing a slot doesn't build a stack every time
+    private ItemVariant probeVariant;
+    private ItemStack probeStack = ItemStack.EMPTY;
+    private final SlotSnapshots slotSnapshots = new SlotSnapshots();
+    private int layoutVersion;
 
     public InventoryComponent(String name, int xPos, int yPos, int size) {
         this.name = name;
@@ -123,27 +133,72 @@ public class InventoryComponent<T extends IComponentHarness> extends ItemStackHa
         return this;
     }
 
+    /**
+     * Keeps an index of the items in every slot and of the empty slots, so inserting, extracting and counting only touch
+     * the slots that matter instead of all of them. Worth it for inventories with a lot of slots.
+     *
+     * @param indexed True to keep the index
+     * @return itself
+     */
+    public InventoryComponent<T> setIndexed(boolean indexed) {
+        if (indexed && itemIndex == null) {
+            itemIndex = new InventoryItemIndex();
+            itemIndex.rebuild(stacks);
+            escapedSlots.clear();
+        } else if (!indexed) {
+            itemIndex = null;
+        }
+        return this;
+    }
+
+    public boolean isIndexed() {
+        return itemIndex != null;
+    }
+
+    /**
+     * Inserts into the slots in slot order. Stacks already in a slot are grown in place, so a stack got from
+     * {@link #getStackInSlot(int)} sees its count change, also while the transaction is still open. Only filling an
+     * empty slot creates a stack, the one that stays in the slot.
+     */
     @Override
     public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
+        return insert(resource, maxAmount, transaction, false);
+    }
+
+    /**
+     * Inserts like {@link #insert(ItemVariant, long, TransactionContext)} but only into the slots the input filter
+     * accepts the item in. The plain insert skips the filter so the owner can fill slots closed to the outside, anything
+     * moving items in from the outside should use this one.
+     */
+    public long insertFiltered(ItemVariant resource, long maxAmount, TransactionContext transaction) {
+        return insert(resource, maxAmount, transaction, true);
+    }
+
+    private long insert(ItemVariant resource, long maxAmount, TransactionContext transaction, boolean filtered) {
+        if (itemIndex != null) {
+            return insertIndexed(resource, maxAmount, transaction, filtered);
+        }
         long inserted = 0;
-        updateSnapshots(transaction);
         for (int i = 0; i < getSlots(); i++) {
             ItemStack held = stacks[i];
             if (held.isEmpty()) { // just throw in a full stack
+                if (filtered && !isItemValid(i, resource, maxAmount))
+                    continue;
                 int toFill = (int) Math.min(getStackLimit(i, resource, maxAmount), maxAmount);
                 maxAmount -= toFill;
                 inserted += toFill;
                 ItemStack stack = resource.toStack(toFill);
+                slotSnapshots.record(i, transaction);
                 contentsChangedInternal(i, stack, transaction);
-            } else if (ItemStackUtil.canItemStacksStack(held, resource.toStack())) { // already filled, but can stack
+            } else if (resource.matches(held)) { // already filled, but can stack
                 int max = getStackLimit(i, resource, maxAmount); // total possible
                 int canInsert = max - held.getCount(); // room available
-                int actuallyInsert = Math.min(canInsert, (int) maxAmount);
-                if (actuallyInsert > 0) {
+                int actuallyInsert = (int) Math.min(canInsert, maxAmount);
+                if (actuallyInsert > 0 && (!filtered || isItemValid(i, resource, maxAmount))) {
                     maxAmount -= actuallyInsert;
                     inserted += actuallyInsert;
-                    held = held.copy();
-                    held.grow(actuallyInsert);
+                    slotSnapshots.record(i, transaction);
+                    held.grow(actuallyInsert); // the journal puts the count back on abort
                     contentsChangedInternal(i, held, transaction);
                 }
             }
@@ -153,6 +208,165 @@ public class InventoryComponent<T extends IComponentHarness> extends ItemStackHa
         return inserted;
     }
 
+    private long insertIndexed(ItemVariant resource, long maxAmount, TransactionContext transaction, boolean filtered) {
+        revalidateEscapedSlots();
+        long inserted = 0;
+        // The same slot order as the unindexed loop, only visiting the slots holding the item and the empty ones
+        int matchingSlot = itemIndex.nextSlot(resource, 0);
+        int emptySlot = itemIndex.nextEmptySlot(0);
+        while (maxAmount > 0) {
+            int slot = matchingSlot < 0 ? emptySlot : emptySlot < 0 ? matchingSlot : Math.min(matchingSlot, emptySlot);
+            if (slot < 0 || slot >= getSlots())
+                break;
+            ItemStack held = stacks[slot];
+            if (held.isEmpty()) {
+                if (!filtered || isItemValid(slot, resource, maxAmount)) {
+                    int toFill = (int) Math.min(getStackLimit(slot, resource, maxAmount), maxAmount);
+                    maxAmount -= toFill;
+                    inserted += toFill;
+                    slotSnapshots.record(slot, transaction);
+                    contentsChangedInternal(slot, resource.toStack(toFill), transaction);
+                }
+            } else if (resource.matches(held)) {
+                int actuallyInsert = (int) Math.min(getStackLimit(slot, resource, maxAmount) - held.getCount(), maxAmount);
+                if (actuallyInsert > 0 && (!filtered || isItemValid(slot, resource, maxAmount))) {
+                    maxAmount -= actuallyInsert;
+                    inserted += actuallyInsert;
+                    slotSnapshots.record(slot, transaction);
+                    held.grow(actuallyInsert);
+                    contentsChangedInternal(slot, held, transaction);
+                }
+            } else {
+                itemIndex.update(slot, held);
+            }
+            matchingSlot = itemIndex.nextSlot(resource, slot + 1);
+            emptySlot = itemIndex.nextEmptySlot(slot + 1);
+        }
+        return inserted;
+    }
+
+    /**
+     * Stacks handed out by {@link #getStackInSlot(int)} can be changed in place without the inventory knowing, the index
+     * looks at those slots again before it's used.
+     */
+    private void revalidateEscapedSlots() {
+        for (int slot = escapedSlots.nextSetBit(0); slot >= 0 && slot < stacks.length; slot = escapedSlots.nextSetBit(slot + 1)) {
+            itemIndex.update(slot, stacks[slot]);
+        }
+        escapedSlots.clear();
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack getStackInSlot(int slot) {
+        if (itemIndex != null) escapedSlots.set(slot);
+        return super.getStackInSlot(slot);
+    }
+
+    @Override
+    public long extract(ItemVariant resource, long maxAmount, TransactionContext transaction) {
+        if (resource.isBlank() || maxAmount <= 0) {
+            return 0;
+        }
+        long extracted = 0;
+        if (itemIndex != null) {
+            revalidateEscapedSlots();
+            for (int slot = itemIndex.nextSlot(resource, 0); slot >= 0; slot = itemIndex.nextSlot(resource, slot + 1)) {
+                if (!resource.matches(stacks[slot])) {
+                    itemIndex.update(slot, stacks[slot]);
+                    continue;
+                }
+                extracted += extractFromSlot(slot, maxAmount - extracted, transaction);
+                if (extracted == maxAmount)
+                    break;
+            }
+            return extracted;
+        }
+        for (int slot = 0; slot < getSlots() && extracted < maxAmount; slot++) {
+            if (resource.matches(stacks[slot])) {
+                extracted += extractFromSlot(slot, maxAmount - extracted, transaction);
+            }
+        }
+        return extracted;
+    }
+
+    private int extractFromSlot(int slot, long maxAmount, TransactionContext transaction) {
+        ItemStack held = stacks[slot];
+        int toExtract = (int) Math.min(held.getCount(), maxAmount);
+        if (toExtract <= 0) {
+            return 0;
+        }
+        slotSnapshots.record(slot, transaction);
+        held.shrink(toExtract);
+        contentsChangedInternal(slot, held.isEmpty() ? ItemStack.EMPTY : held, transaction);
+        return toExtract;
+    }
+
+    /**
+     * Counts how many of the given item the inventory holds
+     *
+     * @param resource The item to count
+     * @return The amount in all the slots
+     */
+    public long getAmount(ItemVariant resource) {
+        long amount = 0;
+        if (itemIndex != null) {
+            revalidateEscapedSlots();
+            for (int slot = itemIndex.nextSlot(resource, 0); slot >= 0; slot = itemIndex.nextSlot(resource, slot + 1)) {
+                if (resource.matches(stacks[slot])) amount += stacks[slot].getCount();
+            }
+            return amount;
+        }
+        for (ItemStack stack : stacks) {
+            if (resource.matches(stack)) amount += stack.getCount();
+        }
+        return amount;
+    }
+
+    @Override
+    protected void contentsChangedInternal(int slot, ItemStack newStack, TransactionContext ctx) {
+        super.contentsChangedInternal(slot, newStack, ctx);
+        if (itemIndex != null) itemIndex.update(slot, stacks[slot]);
+    }
+
+    @Override
+    public void setStackInSlot(int slot, ItemStack stack) {
+        super.setStackInSlot(slot, stack);
+        if (itemIndex != null) itemIndex.update(slot, stacks[slot]);
+    }
+
+    @Override
+    public void setSize(int size) {
+        super.setSize(size);
+        if (itemIndex != null) itemIndex.rebuild(stacks);
+        markLayoutChanged();
+    }
+
+    /**
+     * Goes up every time the amount of slots or the exposed faces of this inventory change, views over it rebuild when
+     * it differs from the one they were built with.
+     */
+    public int getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    protected void markLayoutChanged() {
+        layoutVersion++;
+    }
+
+    @Override
+    public void deserializeNBT(CompoundTag nbt) {
+        super.deserializeNBT(nbt);
+        if (itemIndex != null) itemIndex.rebuild(stacks);
+    }
+
+    @Override
+    protected void readSnapshot(ItemStack[] snapshot) {
+        super.readSnapshot(snapshot);
+        // An aborted transaction puts back the whole array, the counts of stacks grown in place are put back by the slot journal
+        if (itemIndex != null) itemIndex.rebuild(stacks);
+    }
+
     @Override
     protected void onContentsChanged(int slot) {
         if (this.componentHarness != null) {
@@ -351,9 +565,20 @@ public class InventoryComponent<T extends IComponentHarness> extends ItemStackHa
         return this;
     }
 
+    /**
+     * Tests the input filter with a stack that is reused between calls, the filter must not keep or change it.
+     */
     @Override
     public boolean isItemValid(int slot, @Nonnull ItemVariant variant, long amount) {
-        return insertPredicate.test(variant.toStack((int) amount), slot);
+        if (variant.isBlank()) {
+            return insertPredicate.test(ItemStack.EMPTY, slot);
+        }
+        if (!variant.equals(probeVariant)) {
+            probeVariant = variant;
+            probeStack = variant.toStack();
+        }
+        probeStack.setCount((int) Math.min(amount, Integer.MAX_VALUE));
+        return insertPredicate.test(probeStack, slot);
     }
 
     @Override
@@ -370,4 +595,100 @@ public class InventoryComponent<T extends IComponentHarness> extends ItemStackHa
                 () -> new SlotContainerAddon(this, xPos, yPos, slotPosition)
         );
     }
+
+    /**
+     * Snapshots for transactions that only remember the slots changed inside a transaction and only put those back when
+     * it's aborted. Stacks are only ever grown or shrunk in place, so remembering the original stack and its count is
+     * enough to undo a change without copying it. A committed nested transaction hands the slots its parent didn't have
+     * yet over to it.
+     * <p>
+     * Putting the counts back on the original stacks also keeps the whole array snapshots of the per slot views right,
+     * they hold the same stacks.
+     */
+    private class SlotSnapshots implements Transaction.CloseCallback {
+        // One journal for every open nesting depth, reused between transactions
+        private final List<Journal> journals = new ArrayList<>();
+
+        /**
+         * Remembers the stack in the slot if this is the first change to it in the transaction, call before changing it.
+         */
+        void record(int slot, TransactionContext transaction) {
+            getJournal(transaction).record(slot, stacks[slot], stacks[slot].getCount());
+        }
+
+        private Journal getJournal(TransactionContext transaction) {
+            int depth = transaction.nestingDepth();
+            while (journals.size() <= depth) {
+                journals.add(new Journal());
+            }
+            Journal journal = journals.get(depth);
+            if (journal.slotCount == 0) {
+                transaction.addCloseCallback(this);
+            }
+            return journal;
+        }
+
+        @Override
+        public void onClose(TransactionContext transaction, TransactionContext.Result result) {
+            int depth = transaction.nestingDepth();
+            Journal journal = journals.get(depth);
+            if (result.wasAborted()) {
+                for (int i = 0; i < journal.slotCount; i++) {
+                    int slot = journal.slots[i];
+                    ItemStack stack = journal.stacks[slot];
+                    int count = journal.counts[slot];
+                    if (count > 0) stack.setCount(count);
+                    if (slot < stacks.length) {
+                        stacks[slot] = stack;
+                        if (itemIndex != null) itemIndex.update(slot, stack);
+                    }
+                }
+            } else if (depth > 0) {
+                Journal parent = getJournal(transaction.getOpenTransaction(depth - 1));
+                for (int i = 0; i < journal.slotCount; i++) {
+                    int slot = journal.slots[i];
+                    parent.record(slot, journal.stacks[slot], journal.counts[slot]);
+                }
+            }
+            journal.clear();
+        }
+    }
+
+    /**
+     * The original stacks and counts of the slots touched at one nesting depth, in arrays indexed by slot that grow with
+     * the inventory and are kept between transactions.
+     */
+    private static class Journal {
+        private final BitSet recorded = new BitSet();
+        private int[] slots = new int[0];
+        private int slotCount;
+        private ItemStack[] stacks = new ItemStack[0];
+        private int[] counts = new int[0];
+
+        void record(int slot, ItemStack stack, int count) {
+            if (recorded.get(slot)) {
+                return;
+            }
+            recorded.set(slot);
+            if (slot >= stacks.length) {
+                int size = Math.max(slot + 1, stacks.length * 2);
+                stacks = Arrays.copyOf(stacks, size);
+                counts = Arrays.copyOf(counts, size);
+            }
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(8, slotCount * 2));
+            }
+            slots[slotCount++] = slot;
+            stacks[slot] = stack;
+            counts[slot] = count;
+        }
+
+        void clear() {
+            for (int i = 0; i < slotCount; i++) {
+                stacks[slots[i]] = null;
+            }
+            slotCount = 0;
+            recorded.clear();
+        }
+    }
 }
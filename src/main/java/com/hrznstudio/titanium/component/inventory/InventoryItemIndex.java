@@ -0,0 +1,85 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.component.inventory;
+
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of which slots of an inventory hold which item and which slots are empty, so big inventories can insert,
+ * extract and count an item by only looking at the slots that matter.
+ * <p>
+ * Stacks changed in place without going through the inventory can leave the index behind, users check the stack in
+ * the slot before trusting it and call {@link #update(int, ItemStack)} when it doesn't match.
+ */
+public class InventoryItemIndex {
+    private final Map<ItemVariant, BitSet> slotsByVariant = new HashMap<>();
+    private final BitSet emptySlots = new BitSet();
+    private ItemVariant[] slotVariants = new ItemVariant[0];
+
+    public void rebuild(ItemStack[] stacks) {
+        slotsByVariant.clear();
+        emptySlots.clear();
+        slotVariants = new ItemVariant[stacks.length];
+        for (int slot = 0; slot < stacks.length; slot++) {
+            update(slot, stacks[slot]);
+        }
+    }
+
+    public void update(int slot, ItemStack stack) {
+        ItemVariant previous = slotVariants[slot];
+        if (stack.isEmpty()) {
+            if (previous != null) {
+                remove(previous, slot);
+                slotVariants[slot] = null;
+            }
+            emptySlots.set(slot);
+            return;
+        }
+        emptySlots.clear(slot);
+        if (previous != null && previous.matches(stack)) {
+            return;
+        }
+        if (previous != null) {
+            remove(previous, slot);
+        }
+        ItemVariant variant = ItemVariant.of(stack);
+        slotVariants[slot] = variant;
+        slotsByVariant.computeIfAbsent(variant, key -> new BitSet()).set(slot);
+    }
+
+    private void remove(ItemVariant variant, int slot) {
+        BitSet slots = slotsByVariant.get(variant);
+        if (slots != null) {
+            slots.clear(slot);
+            if (slots.isEmpty()) {
+                slotsByVariant.remove(variant);
+            }
+        }
+    }
+
+    /**
+     * Gets the first slot holding the given item starting at the given one, or -1 if there isn't one. Slots can be
+     * updated while walking them this way.
+     */
+    public int nextSlot(ItemVariant variant, int fromSlot) {
+        BitSet slots = slotsByVariant.get(variant);
+        return slots == null ? -1 : slots.nextSetBit(fromSlot);
+    }
+
+    /**
+     * Gets the first empty slot starting at the given one, or -1 if there isn't one
+     */
+    public int nextEmptySlot(int fromSlot) {
+        return emptySlots.nextSetBit(fromSlot);
+    }
+}
@@ -26,6 +26,7 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 
 
@@ -34,10 +35,14 @@ public class MultiInventoryComponent<T extends IComponentHarness> implements ISc
 
     private final LinkedHashSet<InventoryComponent<T>> inventoryHandlers;
     private final Map<FacingUtil.Sideness, LazyOptional<MultiInvCapabilityHandler<T>>> lazyOptionals;
+    // Views are built on first use and dropped whenever the slots or faces of an inventory change
+    private final Map<FacingUtil.Sideness, MultiInvCapabilityHandler<T>> sideHandlers;
+    private int layoutVersion;
 
     public MultiInventoryComponent() {
         this.inventoryHandlers = new LinkedHashSet<>();
         this.lazyOptionals = new HashMap<>();
+        this.sideHandlers = new HashMap<>();
         lazyOptionals.put(null, LazyOptional.empty());
         for (FacingUtil.Sideness value : FacingUtil.Sideness.values()) {
             lazyOptionals.put(value, LazyOptional.empty());
@@ -58,8 +63,24 @@ public class MultiInventoryComponent<T extends IComponentHarness> implements ISc
 
     private void rebuildCapability(FacingUtil.Sideness[] sides) {
         for (FacingUtil.Sideness side : sides) {
+            sideHandlers.remove(side);
             lazyOptionals.get(side).invalidate();
-            lazyOptionals.put(side, LazyOptional.of(() -> new MultiInvCapabilityHandler<>(getHandlersForSide(side))));
+            lazyOptionals.put(side, LazyOptional.of(() -> getHandlerForSide(side)));
+        }
+    }
+
+    /**
+     * Drops the views when an inventory changed its size or faces since they were built, like after loading its faces
+     * from NBT. The versions only go up, so their sum changes with any of them.
+     */
+    private void checkLayout() {
+        int version = 0;
+        for (InventoryComponent<T> inventoryHandler : inventoryHandlers) {
+            version += inventoryHandler.getLayoutVersion();
+        }
+        if (version != layoutVersion) {
+            layoutVersion = version;
+            rebuildCapability(FacingUtil.Sideness.values());
         }
     }
 
@@ -84,9 +105,24 @@ public class MultiInventoryComponent<T extends IComponentHarness> implements ISc
     @Nonnull
     @Override
     public LazyOptional<MultiInvCapabilityHandler<T>> getCapabilityForSide(FacingUtil.Sideness sideness) {
+        checkLayout();
         return lazyOptionals.get(sideness);
     }
 
+    /**
+     * Gets the view of the inventories exposed on the given side, it stays the same object until the side is rebuilt
+     *
+     * @return The view, or null if no inventory was added yet
+     */
+    @Nullable
+    public MultiInvCapabilityHandler<T> getHandlerForSide(FacingUtil.Sideness sideness) {
+        if (inventoryHandlers.isEmpty()) {
+            return null;
+        }
+        checkLayout();
+        return sideHandlers.computeIfAbsent(sideness, side -> new MultiInvCapabilityHandler<>(getHandlersForSide(side)));
+    }
+
     @Override
     public boolean handleFacingChange(String handlerName, FacingUtil.Sideness facing, int mode) {
         for (InventoryComponent<T> inventoryHandler : inventoryHandlers) {
@@ -124,6 +160,9 @@ public class MultiInventoryComponent<T extends IComponentHarness> implements ISc
 
         private final List<InventoryComponent<T>> inventoryHandlers;
         private int slotAmount;
+        // Index of the handler and the slot inside it for every slot of this view
+        private final int[] handlerIndexes;
+        private final int[] relativeSlots;
 
         public MultiInvCapabilityHandler(List<InventoryComponent<T>> inventoryHandlers) {
             this.inventoryHandlers = inventoryHandlers;
@@ -131,6 +170,16 @@ public class MultiInventoryComponent<T extends IComponentHarness> implements ISc
             for (InventoryComponent<T> inventoryHandler : this.inventoryHandlers) {
                 slotAmount += inventoryHandler.getSlots();
             }
+            this.handlerIndexes = new int[slotAmount];
+            this.relativeSlots = new int[slotAmount];
+            int slot = 0;
+            for (int i = 0; i < this.inventoryHandlers.size(); i++) {
+                for (int relative = 0; relative < this.inventoryHandlers.get(i).getSlots(); relative++) {
+                    handlerIndexes[slot] = i;
+                    relativeSlots[slot] = relative;
+                    slot++;
+                }
+            }
         }
 
         @Override
@@ -190,22 +239,22 @@ public class MultiInventoryComponent<T extends IComponentHarness> implements ISc
         public int getSlotLimit(int slot) {
             InventoryComponent<T> handler = getFromSlot(slot);
             if (handler != null) {
-                handler.getSlotLimit(getRelativeSlot(handler, slot));
+                return handler.getSlotLimit(getRelativeSlot(handler, slot));
             }
             return super.getSlotLimit(slot);
         }
 
         public InventoryComponent<T> getFromSlot(int slot) {
-            for (InventoryComponent<T> handler : inventoryHandlers) {
-                slot -= handler.getSlots();
-                if (slot < 0) {
-                    return handler;
-                }
+            if (slot < 0 || slot >= slotAmount) {
+                return null;
             }
-            return null;
+            return inventoryHandlers.get(handlerIndexes[slot]);
         }
 
         public int getRelativeSlot(InventoryComponent<T> handler, int slot) {
+            if (slot >= 0 && slot < slotAmount && inventoryHandlers.get(handlerIndexes[slot]) == handler) {
+                return relativeSlots[slot];
+            }
             for (InventoryComponent<T> h : inventoryHandlers) {
                 if (h.equals(handler)) return slot;
                 slot -= h.getSlots();
@@ -15,13 +15,15 @@ import com.hrznstudio.titanium.block.tile.ActiveTile;
 import com.hrznstudio.titanium.client.screen.addon.FacingHandlerScreenAddon;
 import com.hrznstudio.titanium.component.IComponentHarness;
 import com.hrznstudio.titanium.component.sideness.IFacingComponent;
+import com.hrznstudio.titanium.component.sideness.NeighbourApiCache;
 import com.hrznstudio.titanium.component.sideness.SidedComponentManager;
 import com.hrznstudio.titanium.util.FacingUtil;
 import io.github.fabricators_of_create.porting_lib.transfer.TransferUtil;
-import io.github.fabricators_of_create.porting_lib.transfer.item.ItemHandlerHelper;
-import io.github.fabricators_of_create.porting_lib.transfer.item.SlotExposedStorage;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
+import net.fabricmc.fabric.api.transfer.v1.storage.base.InsertionOnlyStorage;
 import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -29,7 +31,6 @@ import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.item.DyeColor;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.entity.BlockEntity;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 
@@ -47,6 +48,9 @@ public class SidedInventoryComponent<T extends IComponentHarness> extends Invent
     private int position;
     private boolean hasFacingAddon;
     private FaceMode[] validFaceModes;
+    private final NeighbourApiCache<Storage<ItemVariant>> neighbours = new NeighbourApiCache<>(ItemStorage.SIDED);
+    // Pulled items only go into the slots the input filter accepts them in
+    private final InsertionOnlyStorage<ItemVariant> filteredInsertion = this::insertFiltered;
 
     public SidedInventoryComponent(String name, int xPos, int yPos, int size, int position) {
         super(name, xPos, yPos, size);
@@ -128,28 +132,18 @@ public class SidedInventoryComponent<T extends IComponentHarness> extends Invent
         for (FacingUtil.Sideness sideness : facingModes.keySet()) {
             if (facingModes.get(sideness).equals(FaceMode.PUSH)) {
                 Direction real = FacingUtil.getFacingFromSide(blockFacing, sideness);
-                BlockEntity entity = world.getBlockEntity(pos.relative(real));
-                if (entity != null) {
-//                    boolean hasWorked = entity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, real.getOpposite()) TODO: PORT
-//                            .map(iItemHandler -> transfer(sideness, this, iItemHandler, workAmount))
-//                            .orElse(false);
-//                    if (hasWorked) {
-//                        return true;
-//                    }
+                Storage<ItemVariant> storage = neighbours.find(world, pos, real);
+                if (storage != null && push(sideness, storage, workAmount)) {
+                    return true;
                 }
             }
         }
         for (FacingUtil.Sideness sideness : facingModes.keySet()) {
             if (facingModes.get(sideness).equals(FaceMode.PULL)) {
                 Direction real = FacingUtil.getFacingFromSide(blockFacing, sideness);
-                BlockEntity entity = world.getBlockEntity(pos.relative(real));
-                if (entity != null) {
-//                    boolean hasWorked = entity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, real.getOpposite()) TODO: PORT
-//                            .map(iItemHandler -> transfer(sideness, iItemHandler, this, workAmount))
-//                            .orElse(false);
-//                    if (hasWorked) {
-//                        return true;
-//                    }
+                Storage<ItemVariant> storage = neighbours.find(world, pos, real);
+                if (storage != null && pull(storage, workAmount)) {
+                    return true;
                 }
             }
         }
@@ -173,6 +167,7 @@ public class SidedInventoryComponent<T extends IComponentHarness> extends Invent
         for (FacingUtil.Sideness value : FacingUtil.Sideness.values()) {
             this.facingModes.put(value, validFaceModes[0]);
         }
+        markLayoutChanged();
         return this;
     }
 
@@ -195,6 +190,7 @@ public class SidedInventoryComponent<T extends IComponentHarness> extends Invent
             for (String face : compound.getAllKeys()) {
                 facingModes.put(FacingUtil.Sideness.valueOf(face), FaceMode.valueOf(compound.getString(face)));
             }
+            markLayoutChanged();
         }
     }
 
@@ -207,39 +203,42 @@ public class SidedInventoryComponent<T extends IComponentHarness> extends Invent
         return addons;
     }
 
-    private int getNextSlot(SlotExposedStorage handler, int currentSlot) {
-        for (int i = currentSlot; i < handler.getSlots(); i++) {
-            if (!handler.getStackInSlot(i).isEmpty()) return i;
+    private int getNextSlot(int currentSlot) {
+        for (int i = currentSlot; i < getSlots(); i++) {
+            if (!getStackInSlot(i).isEmpty()) return i;
         }
         return 0;
     }
 
-    private boolean transfer(FacingUtil.Sideness sideness, SlotExposedStorage from, SlotExposedStorage to, int workAmount) {
-        if (from.getSlots() <= 0) return false;
-        int slot = slotCache.getOrDefault(sideness, getNextSlot(from, 0));
-        if (slot >= from.getSlots()) slot = 0;
-        try (Transaction t = TransferUtil.getTransaction()) {
-            long extracted = from.simulateExtract(ItemVariant.of(from.getStackInSlot(slot)), workAmount, t);
-            int outSlot = isValidForAnySlot(to, new ItemStack(from.getStackInSlot(slot).getItem(), (int) extracted));
-            if (extracted >= 0 && outSlot != -1) {
-                long returned = to.insert(ItemVariant.of(to.getStackInSlot(outSlot)), extracted, t);
-                boolean result = from.extract(ItemVariant.of(from.getStackInSlot(slot)), extracted - returned, t) != 0;
-                t.commit();
-                return result;
+    /**
+     * Pushes the item of the cached slot, moving on to the next filled slot when nothing of it could be inserted.
+     */
+    private boolean push(FacingUtil.Sideness sideness, Storage<ItemVariant> to, int workAmount) {
+        if (getSlots() <= 0 || !to.supportsInsertion()) return false;
+        int slot = slotCache.getOrDefault(sideness, getNextSlot(0));
+        if (slot >= getSlots()) slot = 0;
+        ItemStack stack = getStackInSlot(slot);
+        if (!stack.isEmpty()) {
+            ItemVariant resource = ItemVariant.of(stack);
+            try (Transaction t = TransferUtil.getTransaction()) {
+                if (StorageUtil.move(this, to, resource::equals, workAmount, t) > 0) {
+                    t.commit();
+                    return true;
+                }
             }
-            slotCache.put(sideness, getNextSlot(from, slot + 1));
         }
+        slotCache.put(sideness, getNextSlot(slot + 1));
         return false;
     }
 
-    private int isValidForAnySlot(SlotExposedStorage dest, ItemStack stack) {
-        for (int i = 0; i < dest.getSlots(); i++) {
-            if (!dest.isItemValid(i, ItemVariant.of(stack), stack.getCount())) continue;
-            if (dest.getStackInSlot(i).isEmpty()) return i;
-            if (ItemHandlerHelper.canItemStacksStack(dest.getStackInSlot(i), stack) && dest.getStackInSlot(i).getCount() < dest.getSlotLimit(i) && dest.getStackInSlot(i).getCount() < dest.getStackInSlot(i).getMaxStackSize()) {
-                return i;
+    private boolean pull(Storage<ItemVariant> from, int workAmount) {
+        if (!from.supportsExtraction()) return false;
+        try (Transaction t = TransferUtil.getTransaction()) {
+            if (StorageUtil.move(from, filteredInsertion, variant -> true, workAmount, t) > 0) {
+                t.commit();
+                return true;
             }
         }
-        return -1;
+        return false;
     }
 }
@@ -22,6 +22,7 @@ import java.util.List;
 public class MultiProgressBarHandler<T extends IComponentHarness> implements IScreenAddonProvider, IContainerAddonProvider, IComponentHandler {
 
     private final List<ProgressBarComponent<T>> progressBarComponents;
+    private boolean idle;
 
     public MultiProgressBarHandler() {
         progressBarComponents = new ArrayList<>();
@@ -32,7 +33,16 @@ public class MultiProgressBarHandler<T extends IComponentHarness> implements ISc
     }
 
     public void update() {
+        boolean idle = true;
         for (ProgressBarComponent<T> posWorkBar : progressBarComponents) {
+            int previousProgress = posWorkBar.getProgress();
+            if (posWorkBar.isVirtualTime()) {
+                posWorkBar.updateVirtualTime();
+                if (!posWorkBar.isVirtualRunning() && posWorkBar.getProgress() != previousProgress) {
+                    idle = false;
+                }
+                continue;
+            }
             if (posWorkBar.getCanIncrease().test(posWorkBar.getComponentHarness())) {
                 if (posWorkBar.getIncreaseType() && posWorkBar.getProgress() == 0) {
                     posWorkBar.onStart();
@@ -41,10 +51,44 @@ public class MultiProgressBarHandler<T extends IComponentHarness> implements ISc
                     posWorkBar.onStart();
                 }
                 posWorkBar.tickBar();
+                boolean canStep = posWorkBar.getIncreaseType() ? posWorkBar.getProgress() < posWorkBar.getMaxProgress() : posWorkBar.getProgress() > 0;
+                if (canStep || posWorkBar.getProgress() != previousProgress) {
+                    idle = false;
+                }
             } else if (posWorkBar.getCanReset().test(posWorkBar.getComponentHarness())) {
-                posWorkBar.setProgress(posWorkBar.getIncreaseType() ? 0 : posWorkBar.getMaxProgress());
+                int resetProgress = posWorkBar.getIncreaseType() ? 0 : posWorkBar.getMaxProgress();
+                if (posWorkBar.getProgress() != resetProgress) {
+                    posWorkBar.setProgress(resetProgress);
+                    idle = false;
+                }
             }
         }
+        this.idle = idle;
+    }
+
+    /**
+     * Whether the last {@link #update()} found nothing for the bars to do, like a bar that is allowed to increase but
+     * already reached its end and can't reset. It's recorded while updating so the bar predicates don't run twice a
+     * tick, a bar that changed keeps this false until an update finds nothing left to do. Bars running in virtual time
+     * count as idle, they only need an update at their completion tick.
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+
+    /**
+     * Gets when an idle tile has to update its bars again. Bars running in virtual time need it at their completion tick,
+     * any other bar at the given idle wake tick.
+     */
+    public long getNextWakeTick(long idleWakeTick) {
+        if (progressBarComponents.isEmpty()) {
+            return idleWakeTick;
+        }
+        long wakeTick = Long.MAX_VALUE;
+        for (ProgressBarComponent<T> posWorkBar : progressBarComponents) {
+            wakeTick = Math.min(wakeTick, posWorkBar.isVirtualRunning() ? posWorkBar.getVirtualCompletionTick() : idleWakeTick);
+        }
+        return wakeTick;
     }
 
     @Override
@@ -52,6 +52,10 @@ public class ProgressBarComponent<T extends IComponentHarness> implements INBTSe
     private BarDirection barDirection;
     private DyeColor color;
     private boolean increaseType;
+    private boolean virtualTime;
+    // Game time the current virtual run started at and the progress it started from, -1 while not running
+    private long virtualStart = -1;
+    private int virtualStartProgress;
 
     public ProgressBarComponent(int posX, int posY, int maxProgress) {
         this.posX = posX;
@@ -166,6 +170,99 @@ public class ProgressBarComponent<T extends IComponentHarness> implements INBTSe
         return this;
     }
 
+    public boolean isVirtualTime() {
+        return virtualTime;
+    }
+
+    /**
+     * Makes the bar record when it started and compute its progress from the game time, instead of being ticked. Meant
+     * for machines whose conditions don't change in the middle of a cycle: the conditions are only checked again when
+     * the tile wakes up, either at {@link #getVirtualCompletionTick()} or because an input changed. The tick work set by
+     * {@link #setOnTickWork(Runnable)} doesn't run in this mode.
+     *
+     * @param virtualTime True to compute the progress from the game time
+     * @return Self
+     */
+    public ProgressBarComponent<T> setVirtualTime(boolean virtualTime) {
+        this.virtualTime = virtualTime;
+        if (!virtualTime) {
+            stopVirtualRun();
+        }
+        return this;
+    }
+
+    public boolean isVirtualRunning() {
+        return virtualStart != -1;
+    }
+
+    /**
+     * Gets the game time the running virtual cycle reaches the end of the bar at
+     *
+     * @return The completion tick, or {@link Long#MAX_VALUE} if the bar isn't running in virtual time
+     */
+    public long getVirtualCompletionTick() {
+        if (!isVirtualRunning()) {
+            return Long.MAX_VALUE;
+        }
+        int remaining = increaseType ? maxProgress - virtualStartProgress : virtualStartProgress;
+        long steps = Math.max(1, (remaining + progressIncrease - 1) / progressIncrease);
+        return virtualStart + (steps - 1) * tickingTime;
+    }
+
+    private int getVirtualProgress(long gameTime) {
+        long change = ((gameTime - virtualStart) / tickingTime + 1) * progressIncrease;
+        return (int) (increaseType ? Math.min(maxProgress, virtualStartProgress + change) : Math.max(0, virtualStartProgress - change));
+    }
+
+    private void stopVirtualRun() {
+        if (isVirtualRunning() && componentHarness != null) {
+            progress = getVirtualProgress(componentHarness.getComponentWorld().getGameTime());
+        }
+        virtualStart = -1;
+    }
+
+    /**
+     * Updates a bar in virtual time, managed by {@link MultiProgressBarHandler#update()}. Starts a run when the bar can
+     * increase, and once the run is over or its conditions stopped holding writes the progress down for real.
+     */
+    public void updateVirtualTime() {
+        if (componentHarness == null) {
+            return;
+        }
+        long gameTime = componentHarness.getComponentWorld().getGameTime();
+        if (isVirtualRunning()) {
+            int current = getVirtualProgress(gameTime);
+            boolean finished = increaseType ? current >= maxProgress : current <= 0;
+            if (!finished && canIncrease.test(componentHarness)) {
+                return;
+            }
+            virtualStart = -1;
+            setProgress(current);
+        } else if (canIncrease.test(componentHarness)) {
+            if (increaseType ? progress == 0 : progress == maxProgress) {
+                onStart();
+            }
+            if (increaseType ? progress < maxProgress : progress > 0) {
+                virtualStart = gameTime;
+                virtualStartProgress = progress;
+                return;
+            }
+        } else if (canReset.test(componentHarness)) {
+            if (progress != (increaseType ? 0 : maxProgress)) {
+                setProgress(increaseType ? 0 : maxProgress);
+            }
+            return;
+        }
+        if (increaseType && progress >= maxProgress && canReset.test(componentHarness)) {
+            setProgress(0);
+            this.onFinishWork.run();
+        }
+        if (!increaseType && progress <= 0 && canReset.test(componentHarness)) {
+            setProgress(maxProgress);
+            this.onFinishWork.run();
+        }
+    }
+
     /**
      * Ticks the bar so it can increase if possible, managed by {@link MultiProgressBarHandler#update()}
      */
@@ -234,6 +331,9 @@ public class ProgressBarComponent<T extends IComponentHarness> implements INBTSe
      * @return The progress
      */
     public int getProgress() {
+        if (isVirtualRunning()) {
+            return getVirtualProgress(componentHarness.getComponentWorld().getGameTime());
+        }
         return progress;
     }
 
@@ -243,6 +343,8 @@ public class ProgressBarComponent<T extends IComponentHarness> implements INBTSe
      * @param progress The progress to set
      */
     public void setProgress(int progress) {
+        // Progress set from outside replaces the running virtual cycle, the next update starts a new one if it can
+        this.virtualStart = -1;
         this.progress = progress;
         if (componentHarness != null) componentHarness.markComponentForUpdate(true);
     }
@@ -361,7 +463,7 @@ public class ProgressBarComponent<T extends IComponentHarness> implements INBTSe
     @Override
     public CompoundTag serializeNBT() {
         CompoundTag compound = new CompoundTag();
-        compound.putInt("Tick", progress);
+        compound.putInt("Tick", getProgress());
         compound.putInt("MaxProgress", maxProgress);
         return compound;
     }
@@ -369,6 +471,7 @@ public class ProgressBarComponent<T extends IComponentHarness> implements INBTSe
     @Override
     public void deserializeNBT(CompoundTag nbt) {
         progress = nbt.getInt("Tick");
+        virtualStart = -1;
         maxProgress = nbt.getInt("MaxProgress");
     }
 
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Titanium
+ * Copyright (C) 2022, Horizon Studio <contact@hrznstudio.com>.
+ *
+ * This code is licensed under GNU Lesser General Public License v3.0, the full license text can be found in LICENSE.txt
+ */
+
+package com.hrznstudio.titanium.component.sideness;
+
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiCache;
+import net.fabricmc.fabric.api.lookup.v1.block.BlockApiLookup;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * One {@link BlockApiCache} per side of a block, so repeated push/pull to the same neighbours skips the block entity
+ * lookup and the API resolution. The caches are created on first use and keep themselves up to date when the
+ * neighbouring block or block entity changes, they are only recreated when the block asks from another level or
+ * position.
+ */
+public class NeighbourApiCache<A> {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final BlockApiLookup<A, Direction> lookup;
+    @SuppressWarnings("unchecked")
+    private final BlockApiCache<A, Direction>[] caches = new BlockApiCache[DIRECTIONS.length];
+    // The position the caches were created around, the neighbour positions are the ones of the caches
+    @Nullable
+    private BlockPos origin;
+
+    public NeighbourApiCache(BlockApiLookup<A, Direction> lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Finds the API of the block next to the given position, on the side facing back at it.
+     */
+    @Nullable
+    public A find(Level level, BlockPos pos, Direction direction) {
+        if (!(level instanceof ServerLevel serverLevel)) {
+            return lookup.find(level, pos.relative(direction), direction.getOpposite());
+        }
+
+        if (!pos.equals(origin)) {
+            Arrays.fill(caches, null);
+            origin = pos.immutable();
+        }
+        int index = direction.get3DDataValue();
+        BlockApiCache<A, Direction> cache = caches[index];
+        if (cache == null || cache.getWorld() != serverLevel) {
+            cache = BlockApiCache.create(lookup, serverLevel, origin.relative(direction));
+            caches[index] = cache;
+        }
+        return cache.find(direction.getOpposite());
+    }
+}